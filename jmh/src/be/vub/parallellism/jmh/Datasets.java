@@ -0,0 +1,64 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.TrieSentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Data shared by all benchmarks of one JMH fork.
+ * The full dataset is loaded once per fork (through the snapshot cache of TweetReader) and every trial
+ * takes a prefix of the requested size, so sweeping dataset sizes does not reload the csv.
+ */
+class Datasets {
+    static final String POSITIVE_WORDS = "./files/positive-words.txt";
+    static final String NEGATIVE_WORDS = "./files/negative-words.txt";
+
+    private static String loadedFile;
+    private static Tweet[] allTweets;
+    private static HashtagDictionary dictionary;
+    private static HashSet<String> positiveWords;
+    private static HashSet<String> negativeWords;
+    private static SentimentLexicon lexicon;
+
+    static synchronized void load(String file) throws IOException {
+        if (file.equals(loadedFile)) return;
+        dictionary = new HashtagDictionary();
+        allTweets = TweetReader.readDataCached(file, ForkJoinPool.commonPool(), dictionary).toArray(new Tweet[0]);
+        positiveWords = WordListReader.read(POSITIVE_WORDS);
+        negativeWords = WordListReader.read(NEGATIVE_WORDS);
+        lexicon = new TrieSentimentLexicon(positiveWords, negativeWords);
+        loadedFile = file;
+    }
+
+    /**
+     * @param size Number of tweets, capped at the size of the dataset.
+     * @return The first size tweets of the loaded dataset.
+     */
+    static Tweet[] tweets(int size) {
+        return size >= allTweets.length ? allTweets : Arrays.copyOf(allTweets, size);
+    }
+
+    static HashtagDictionary dictionary() {
+        return dictionary;
+    }
+
+    static HashSet<String> positiveWords() {
+        return positiveWords;
+    }
+
+    static HashSet<String> negativeWords() {
+        return negativeWords;
+    }
+
+    static SentimentLexicon lexicon() {
+        return lexicon;
+    }
+}
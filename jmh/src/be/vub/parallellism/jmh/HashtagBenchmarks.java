@@ -0,0 +1,56 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.solutions.SequentialAnalyser;
+import be.vub.parallellism.solutions.tasks.CountHashtagConcurrentTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashtag counting: the ForkJoin tasks and the sequential baselines of SequentialAnalyser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class HashtagBenchmarks {
+
+    @Benchmark
+    public HashMap<String, Integer> countHashtagTask(ParallelState state) {
+        return state.pool.invoke(new CountHashtagTask(state.tweets, state.threshold));
+    }
+
+    @Benchmark
+    public ConcurrentHashMap<String, AtomicInteger> countHashtagConcurrentTask(ParallelState state) {
+        ConcurrentHashMap<String, AtomicInteger> hashtagCount = new ConcurrentHashMap<>();
+        state.pool.invoke(new CountHashtagConcurrentTask(state.tweets, hashtagCount, state.threshold));
+        return hashtagCount;
+    }
+
+    @Benchmark
+    public int[] countHashtagIdsTask(ParallelState state) {
+        return state.pool.invoke(new CountHashtagIdsTask(state.tweets, Datasets.dictionary().size(), state.threshold));
+    }
+
+    @Benchmark
+    public HashMap<String, Integer> countHashtagsSequential(SequentialState state) {
+        return SequentialAnalyser.countHashtags(state.tweets);
+    }
+
+    @Benchmark
+    public HashMap<String, Integer> countHashtagIdsSequential(SequentialState state) {
+        return SequentialAnalyser.countHashtagIds(state.tweets, Datasets.dictionary());
+    }
+}
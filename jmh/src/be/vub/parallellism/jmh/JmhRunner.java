@@ -0,0 +1,34 @@
+package be.vub.parallellism.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of the JMH harness.
+ *
+ * Accepts the usual JMH command line, e.g.
+ *      -p cores=1,8,64 -p size=3500000 -prof gc HashtagBenchmarks
+ * and always writes the results as JSON to ./results/jmh_<timestamp>.json, so runs can be archived and diffed.
+ */
+public class JmhRunner {
+
+    public static void main(String[] args) throws Exception {
+        new File("./results").mkdirs();
+        String result = "./results/jmh_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".json";
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + result);
+    }
+}
@@ -0,0 +1,45 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.models.Tweet;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * State of the ForkJoin benchmarks: dataset size, pool size and sequential threshold are swept as parameters.
+ */
+@State(Scope.Benchmark)
+public class ParallelState {
+    @Param({"./files/tweets_3500000.csv"})
+    public String file;
+
+    @Param({"100000", "1000000", "3500000"})
+    public int size;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int cores;
+
+    @Param({"1000", "3500", "10000"})
+    public int threshold;
+
+    Tweet[] tweets;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Datasets.load(file);
+        tweets = Datasets.tweets(size);
+        pool = new ForkJoinPool(cores);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,47 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.models.OffHeapTweetStore;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+
+/**
+ * State of the single-threaded scoring benchmarks: the scorer ("unicode" or "ascii") and the dataset size are swept.
+ */
+@State(Scope.Benchmark)
+public class ScorerState {
+    @Param({"./files/tweets_3500000.csv"})
+    public String file;
+
+    @Param({"100000", "1000000", "3500000"})
+    public int size;
+
+    @Param({"unicode", "ascii"})
+    public String scorer;
+
+    Tweet[] tweets;
+    OffHeapTweetStore offHeapStore;
+    // Sequential, with the scorer of the parameter.
+    TaskConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Datasets.load(file);
+        tweets = Datasets.tweets(size);
+        offHeapStore = new OffHeapTweetStore(Datasets.dictionary());
+        offHeapStore.appendAll(tweets);
+        config = TaskConfig.SEQUENTIAL.withAsciiFastPath(scorer.equals("ascii"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offHeapStore = null;
+    }
+}
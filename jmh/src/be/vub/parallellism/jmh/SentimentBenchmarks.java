@@ -0,0 +1,78 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.solutions.SequentialAnalyser;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreOffHeapTask;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.SortSentimentsTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sentiment scoring and sorting: the ForkJoin tasks and the sequential baselines of SequentialAnalyser.
+ * The score*Scorer benchmarks compare the Unicode and the ASCII fast path on one thread, see ScorerState.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class SentimentBenchmarks {
+
+    @Benchmark
+    public Pair<Tweet, Integer>[] calculateSentimentScoreTask(ParallelState state) {
+        CalculateSentimentScoreTask task = new CalculateSentimentScoreTask(
+                state.tweets, Datasets.positiveWords(), Datasets.negativeWords(), state.threshold);
+        state.pool.invoke(task);
+        return task.getScores();
+    }
+
+    @Benchmark
+    public Pair<Tweet, Integer>[] calculateSentimentScoreInPlaceTask(ParallelState state) {
+        CalculateSentimentScoreTask task = new CalculateSentimentScoreTask(state.tweets, Datasets.lexicon(), state.threshold);
+        state.pool.invoke(task);
+        return task.getScores();
+    }
+
+    @Benchmark
+    public Pair<Tweet, Integer>[] sortSentimentsTask(ParallelState state, SortState sort) {
+        state.pool.invoke(new SortSentimentsTask(sort.scores, state.threshold));
+        return sort.scores;
+    }
+
+    @Benchmark
+    public ArrayList<Pair<Tweet, Integer>> scoreAndSortSequential(SequentialState state) {
+        return SequentialAnalyser.scoreAndSort(state.tweets, Datasets.positiveWords(), Datasets.negativeWords());
+    }
+
+    @Benchmark
+    public ArrayList<Pair<Tweet, Integer>> scoreAndSortInPlaceSequential(SequentialState state) {
+        return SequentialAnalyser.scoreAndSort(state.tweets, Datasets.lexicon());
+    }
+
+    @Benchmark
+    public int[] scoreSentimentsScorer(ScorerState state) {
+        // The sequential config of the state runs the whole task on the benchmark thread.
+        ScoreSentimentsTask task = new ScoreSentimentsTask(state.tweets, Datasets.lexicon(), state.config);
+        task.invoke();
+        return task.getResult().getScores();
+    }
+
+    @Benchmark
+    public int[] scoreOffHeapScorer(ScorerState state) {
+        CalculateSentimentScoreOffHeapTask task =
+                new CalculateSentimentScoreOffHeapTask(state.offHeapStore, Datasets.lexicon(), state.config);
+        task.invoke();
+        return task.getScores();
+    }
+}
@@ -0,0 +1,32 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.models.Tweet;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * State of the sequential baselines: only the dataset size is swept.
+ */
+@State(Scope.Benchmark)
+public class SequentialState {
+    @Param({"./files/tweets_3500000.csv"})
+    public String file;
+
+    @Param({"100000", "1000000", "3500000"})
+    public int size;
+
+    List<Tweet> tweets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Datasets.load(file);
+        tweets = Arrays.asList(Datasets.tweets(size));
+    }
+}
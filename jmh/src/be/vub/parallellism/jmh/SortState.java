@@ -0,0 +1,35 @@
+package be.vub.parallellism.jmh;
+
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreTask;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * State of the sort benchmarks: the scores of the tweets of a ParallelState, unsorted before every invocation.
+ * Kept apart from ParallelState so only the sort benchmarks pay for the per-invocation copy.
+ */
+@State(Scope.Benchmark)
+public class SortState {
+    // Unsorted scores, copied to scores before every sort invocation.
+    Pair<Tweet, Integer>[] unsortedScores;
+    Pair<Tweet, Integer>[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp(ParallelState state) {
+        CalculateSentimentScoreTask task = new CalculateSentimentScoreTask(state.tweets, Datasets.lexicon(), state.threshold);
+        state.pool.invoke(task);
+        unsortedScores = task.getScores();
+    }
+
+    /**
+     * Sorting is in place, so every invocation starts from a fresh copy of the unsorted scores.
+     */
+    @Setup(Level.Invocation)
+    public void resetScores() {
+        scores = unsortedScores.clone();
+    }
+}
@@ -1,19 +1,52 @@
 package be.vub.parallellism.bench;
 
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.TrieSentimentLexicon;
+import be.vub.parallellism.data.models.DuplicateTexts;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.OffHeapTweetStore;
 import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.TimeGranularity;
 import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.models.TweetStore;
+import be.vub.parallellism.data.models.TweetTimes;
+import be.vub.parallellism.data.models.UserStats;
+import be.vub.parallellism.data.readers.ParallelTweetReader;
 import be.vub.parallellism.data.readers.TweetReader;
 import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.CachedSentimentScorer;
+import be.vub.parallellism.solutions.tasks.AggregateTimeBucketsTask;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreOffHeapTask;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreStoreTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagBatchedTask;
 import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagConcurrentStoreTask;
 import be.vub.parallellism.solutions.tasks.CountHashtagConcurrentTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagOffHeapTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagStoreTask;
 import be.vub.parallellism.solutions.tasks.CountHashtagTask;
+import be.vub.parallellism.solutions.tasks.CountingSortSentimentsTask;
+import be.vub.parallellism.solutions.tasks.DedupeTextsTask;
+import be.vub.parallellism.solutions.tasks.GroupByUserTask;
+import be.vub.parallellism.solutions.tasks.ParseTweetTimesTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsDedupedTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.SortSentimentScoresTask;
 import be.vub.parallellism.solutions.tasks.SortSentimentsTask;
+import be.vub.parallellism.solutions.tasks.SortTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+import be.vub.parallellism.solutions.tasks.ThresholdTuner;
+import be.vub.parallellism.solutions.tasks.TopHashtagsTask;
 
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
 
 public class ParallelBenchmark {
@@ -21,17 +54,37 @@ public class ParallelBenchmark {
     private static ForkJoinPool pool;
 
     // Standard list of cores to run benchmarks on if there are no command line arguments.
+    // Pass e.g. "10 1 2 4 8 16 32 64" to sweep 1 to 64 cores with 10 repetitions.
     public static List<Integer> preset_cores = Arrays.asList(8);
     // Sequential thresholds to be benchmarked.
     public static List<Integer> sequential_thresholds = Arrays.asList(1000, 2500, 3500, 5000, 6500, 7500, 9000, 10_000, 15_000);
+    // Pass "auto" (e.g. "10 auto 8") to calibrate the threshold with a ThresholdTuner instead of trying sequential_thresholds.
+    public static boolean auto_tune = false;
+    // Number of tweets the tuner measures the cost per tweet on.
+    public static int calibration_sample = 1 << 16;
     // Amount of repetition to complete on each benchmark.
     public static int n_repetitions;
 
     static Tweet[] tweets = new Tweet[0];
     // Half the list of tweets to benchmark Sentiment and sort operation on firefly.
     static Tweet[] halfTweets = new Tweet[0];
+    // Number of counters per summary in the approximate top-K mode.
+    public static int top_k_capacity = 1000;
+    // Dictionary the hashtags of tweets are encoded in while loading.
+    static HashtagDictionary dictionary = new HashtagDictionary();
+    // Columnar copy of tweets to compare with the object layout.
+    static TweetStore store;
+    // Off-heap copy of the text, ids and hashtags of tweets.
+    static OffHeapTweetStore offHeapStore;
     static HashSet<String> positiveWords = new HashSet<>();
     static HashSet<String> negativeWords = new HashSet<>();
+    // Compiled lexicon for the in-place scoring mode, shared read-only by all tasks.
+    static SentimentLexicon lexicon;
+    // Parsed tweet times and sentiment scores, computed once for the time bucket and group by user benchmarks.
+    static TweetTimes times;
+    static int[] scores;
+    // Sample the tuner calibrates on, taken on the first calibration.
+    private static CalibrationSample sample;
 
     public static void main(String[] args) {
         System.out.println("Starting...");
@@ -45,7 +98,23 @@ public class ParallelBenchmark {
         benchmarkLoop(
                 new Pair<>("countHashtagsParallelTaskFJ", ParallelBenchmark::countHashtagsParallelTaskFJ)
                 ,new Pair<>("countHashtagsConcurrentTaskFJ", ParallelBenchmark::countHashtagsConcurrentTaskFJ)
+                ,new Pair<>("countHashtagsIdsTaskFJ", ParallelBenchmark::countHashtagsIdsTaskFJ)
+                ,new Pair<>("countHashtagsBatchedTaskFJ", ParallelBenchmark::countHashtagsBatchedTaskFJ)
+                ,new Pair<>("topHashtagsTaskFJ", ParallelBenchmark::topHashtagsTaskFJ)
                 ,new Pair<>("calculateSentimentAndSortTaskFJ", ParallelBenchmark::calculateSentimentAndSortTaskFJ)
+                ,new Pair<>("calculateSentimentInPlaceAndSortTaskFJ", ParallelBenchmark::calculateSentimentInPlaceAndSortTaskFJ)
+                ,new Pair<>("calculateSentimentAndCountingSortTaskFJ", ParallelBenchmark::calculateSentimentAndCountingSortTaskFJ)
+                ,new Pair<>("scoreSentimentsAndSortTaskFJ", ParallelBenchmark::scoreSentimentsAndSortTaskFJ)
+                ,new Pair<>("scoreSentimentsAsciiTaskFJ", ParallelBenchmark::scoreSentimentsAsciiTaskFJ)
+                ,new Pair<>("scoreSentimentsDedupedTaskFJ", ParallelBenchmark::scoreSentimentsDedupedTaskFJ)
+                ,new Pair<>("countHashtagsStoreTaskFJ", ParallelBenchmark::countHashtagsStoreTaskFJ)
+                ,new Pair<>("countHashtagsConcurrentStoreTaskFJ", ParallelBenchmark::countHashtagsConcurrentStoreTaskFJ)
+                ,new Pair<>("calculateSentimentStoreTaskFJ", ParallelBenchmark::calculateSentimentStoreTaskFJ)
+                ,new Pair<>("countHashtagsOffHeapTaskFJ", ParallelBenchmark::countHashtagsOffHeapTaskFJ)
+                ,new Pair<>("calculateSentimentOffHeapTaskFJ", ParallelBenchmark::calculateSentimentOffHeapTaskFJ)
+                ,new Pair<>("calculateSentimentOffHeapAsciiTaskFJ", ParallelBenchmark::calculateSentimentOffHeapAsciiTaskFJ)
+                ,new Pair<>("aggregateTimeBucketsTaskFJ", ParallelBenchmark::aggregateTimeBucketsTaskFJ)
+                ,new Pair<>("groupByUserTaskFJ", ParallelBenchmark::groupByUserTaskFJ)
         );
     }
 
@@ -57,7 +126,7 @@ public class ParallelBenchmark {
             System.out.println("Benchmarking " + benchmarks[bm_i].getKey());
             //Benchmark the lambda for every core.
             for (int amount_cores : preset_cores) {
-                File res_file = new File("./results/runtimes_"+benchmarks[bm_i].getKey()+"_cores-"+amount_cores+".csv");
+                File res_file = new File("./results/runtimes_"+benchmarks[bm_i].getKey()+"_cores-"+amount_cores+(auto_tune ? "_auto" : "")+".csv");
                 if(res_file.exists()){
                     System.out.println(res_file+" already exists, skipping core amount "+amount_cores);
                     continue;
@@ -65,6 +134,10 @@ public class ParallelBenchmark {
 
                 System.out.println("Running benchmark on " + amount_cores + " cores");
                 var benchmarkWrapper = benchmarks[bm_i].getValue().apply(amount_cores);
+                if (auto_tune) {
+                    benchmarkTuned(res_file, benchmarkWrapper, amount_cores);
+                    continue;
+                }
                 // Start benchmark for every sequential threshold.
                 for(int st_i = 0; st_i < sequential_thresholds.size(); st_i++) {
                     System.out.print("Running benchmark with sequential threshold  " + sequential_thresholds.get(st_i) + ": ");
@@ -91,6 +164,84 @@ public class ParallelBenchmark {
         return runtimes;
     }
 
+    /**
+     * Benchmark with a threshold calibrated on a sample and re-tuned after every repetition.
+     * Every repetition is written to file as a line with the threshold it ran with and its runtime.
+     */
+    private static void benchmarkTuned(File res_file, Function<Integer, Object> benchmark, int cores) {
+        ThresholdTuner tuner = new ThresholdTuner(tweets.length, cores);
+        calibrate(tuner, benchmark);
+        System.out.print("Running benchmark with tuned threshold " + tuner + ": ");
+        System.out.flush();
+        for (int i = 0; i < n_repetitions; i++) {
+            int threshold = tuner.getConfig().getThreshold();
+            System.gc();
+            long before = System.nanoTime();
+            benchmark.apply(threshold);
+            long elapsed = System.nanoTime() - before;
+            write2file(res_file, threshold, Collections.singletonList(elapsed / 1_000_000));
+            tuner.retune(elapsed);
+            System.out.print("|");
+        }
+        System.out.println(" v");
+        System.out.println("Tuned threshold: " + tuner);
+    }
+
+    /**
+     * Calibrate a tuner by running the benchmark sequentially on a sample of the tweets.
+     * The benchmark lambdas read the static tweets, stores, times and scores, so all of them are swapped for
+     * the same rows of the sample while calibrating.
+     */
+    private static void calibrate(ThresholdTuner tuner, Function<Integer, Object> benchmark) {
+        if (sample == null) sample = new CalibrationSample();
+        Tweet[] allTweets = tweets;
+        TweetStore allStore = store;
+        OffHeapTweetStore allOffHeapStore = offHeapStore;
+        TweetTimes allTimes = times;
+        int[] allScores = scores;
+        try {
+            tweets = sample.tweets;
+            store = sample.store;
+            offHeapStore = sample.offHeapStore;
+            times = sample.times;
+            scores = sample.scores;
+            tuner.calibrate(tweets.length, () -> benchmark.apply(TaskConfig.SEQUENTIAL.getThreshold()));
+        } finally {
+            tweets = allTweets;
+            store = allStore;
+            offHeapStore = allOffHeapStore;
+            times = allTimes;
+            scores = allScores;
+        }
+    }
+
+    /**
+     * Rows of the dataset the tuner calibrates on, taken once and shared by all benchmarks.
+     */
+    private static class CalibrationSample {
+        final Tweet[] tweets;
+        final TweetStore store;
+        final OffHeapTweetStore offHeapStore;
+        final TweetTimes times;
+        final int[] scores;
+
+        CalibrationSample() {
+            int[] rows = ThresholdTuner.sampleIndices(ParallelBenchmark.tweets.length, calibration_sample);
+            tweets = new Tweet[rows.length];
+            long[] seconds = new long[rows.length];
+            scores = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                tweets[i] = ParallelBenchmark.tweets[rows[i]];
+                seconds[i] = ParallelBenchmark.times.get(rows[i]);
+                scores[i] = ParallelBenchmark.scores[rows[i]];
+            }
+            times = new TweetTimes(seconds);
+            store = new TweetStore(Arrays.asList(tweets));
+            offHeapStore = new OffHeapTweetStore(dictionary);
+            offHeapStore.appendAll(tweets);
+        }
+    }
+
     //writes runtimes for a given strategy to file
     private static void write2file(File f, int threshold, List<Long> runtimes){
         PrintWriter csv_writer;
@@ -107,6 +258,14 @@ public class ParallelBenchmark {
         }
     }
 
+    /**
+     * @return Bytes used on the heap after a full garbage collection.
+     */
+    private static long usedHeap() {
+        System.gc();
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
     private static void InitParams(String[] args) {
         System.out.println("Initializing params... ");
         n_repetitions = Integer.parseInt(args[0]);
@@ -115,18 +274,40 @@ public class ParallelBenchmark {
         if(args.length > 1){
             preset_cores = new ArrayList<>(args.length-1);
             for(int i = 1; i < args.length; i++){
-                preset_cores.add(Integer.parseInt(args[i]));
+                if (args[i].equals("auto")) auto_tune = true;
+                else preset_cores.add(Integer.parseInt(args[i]));
             }
+            if (preset_cores.isEmpty()) preset_cores = Arrays.asList(8);
         }
+        if (auto_tune) System.out.println("Calibrating the sequential threshold instead of trying fixed values.");
+    }
+
+    private static Tweet[] readTweets() throws IOException {
+        return
+//                TweetReader.readData("/data/PD/Twitter/tweets.csv").toArray(new Tweet[0]);
+//                TweetReader.readData("./files/tweets_10000.csv").toArray(new Tweet[0]);
+//                TweetReader.readData("./files/tweets_3500000.csv").toArray(new Tweet[0]);
+//                ParallelTweetReader.readData("./files/tweets_3500000.csv", ForkJoinPool.commonPool()).toArray(new Tweet[0]);
+                TweetReader.readDataCached("./files/tweets_3500000.csv", ForkJoinPool.commonPool(), dictionary).toArray(new Tweet[0]);
     }
 
     private static void LoadData() {
         System.out.println("Loading Tweets & WordSets... ");
         try {
-            tweets =
-//                    TweetReader.readData("/data/PD/Twitter/tweets.csv").toArray(new Tweet[0]);
-//                    TweetReader.readData("./files/tweets_10000.csv").toArray(new Tweet[0]);
-                    TweetReader.readData("./files/tweets_3500000.csv").toArray(new Tweet[0]);
+            // Heap footprint of both layouts, each measured on its own: the store shares its String columns with
+            // the tweets, so it is measured with the Tweet[] dropped. Both are then built again, sharing as before.
+            long heapBefore = usedHeap();
+            tweets = readTweets();
+            long heapTweets = usedHeap() - heapBefore;
+            store = new TweetStore(Arrays.asList(tweets));
+            tweets = null;
+            long heapStore = usedHeap() - heapBefore;
+            store = null;
+            tweets = readTweets();
+            store = new TweetStore(Arrays.asList(tweets));
+            System.out.println("Heap used by Tweet[] in MB: " + (heapTweets >> 20));
+            System.out.println("Heap used by TweetStore in MB: " + (heapStore >> 20));
+
             positiveWords =
                     WordListReader.read("./files/positive-words.txt");
 //                    WordListReader.read("/data/PD/Twitter/positive-words.txt");
@@ -134,7 +315,20 @@ public class ParallelBenchmark {
                     WordListReader.read("./files/negative-words.txt");
 //                    WordListReader.read("/data/PD/Twitter/negative-words.txt");
 
+            lexicon = new TrieSentimentLexicon(positiveWords, negativeWords);
+
             halfTweets = Arrays.copyOfRange(tweets, 0, (tweets.length/2));
+
+            offHeapStore = new OffHeapTweetStore(dictionary);
+            offHeapStore.appendAll(tweets);
+            System.out.println("Direct memory used by OffHeapTweetStore in MB: " + (offHeapStore.getOffHeapBytes() >> 20));
+
+            ParseTweetTimesTask parseTweetTimesTask = new ParseTweetTimesTask(tweets, 3500);
+            ForkJoinPool.commonPool().invoke(parseTweetTimesTask);
+            times = parseTweetTimesTask.getResult();
+            // Only scores tweets that are not in the score cache of an earlier run.
+            scores = CachedSentimentScorer.score("./files/tweets_3500000.csv", tweets, lexicon, ForkJoinPool.commonPool(),
+                    new TaskConfig(3500)).getScores().getScores();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -166,6 +360,40 @@ public class ParallelBenchmark {
         };
     }
 
+    /**
+     * Benchmark lambda for counting dictionary encoded hashtags in int[] histograms.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return HashMap with count of hashtags.
+     */
+    static Function<Integer, Object> countHashtagsIdsTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> dictionary.toMap(pool.invoke(new CountHashtagIdsTask(tweets, dictionary.size(), threshold)));
+    }
+
+    /**
+     * Benchmark lambda for concurrently counting dictionary encoded hashtags with per-thread batches.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return AtomicLongArray with count of hashtags, indexed by id.
+     */
+    static Function<Integer, Object> countHashtagsBatchedTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            AtomicLongArray hashtagCount = new AtomicLongArray(dictionary.size());
+            pool.invoke(new CountHashtagBatchedTask(tweets, hashtagCount, threshold));
+            return hashtagCount;
+        };
+    }
+
+    /**
+     * Benchmark lambda for the approximate top-K hashtags with Space-Saving summaries.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Summary of the most used hashtags.
+     */
+    static Function<Integer, Object> topHashtagsTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> pool.invoke(new TopHashtagsTask(tweets, top_k_capacity, threshold));
+    }
+
     /**
      * Benchmark lambda for sentiment calculation and sort.
      * @param cores amount of cores to use in ForkJoinPool
@@ -177,8 +405,194 @@ public class ParallelBenchmark {
             CalculateSentimentScoreTask calculateSentimentScoreTask = new CalculateSentimentScoreTask(tweets, positiveWords, negativeWords, threshold);
             pool.invoke(calculateSentimentScoreTask);
             Pair<Tweet, Integer>[] scores = calculateSentimentScoreTask.getScores();
-            pool.invoke(new SortSentimentsTask(scores));
+            pool.invoke(new SortSentimentsTask(scores, threshold));
+            return scores;
+        };
+    }
+
+    /**
+     * Benchmark lambda for in-place sentiment calculation with a SentimentLexicon and sort.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sorted sentiment scores.
+     */
+    static Function<Integer, Object> calculateSentimentInPlaceAndSortTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            CalculateSentimentScoreTask calculateSentimentScoreTask = new CalculateSentimentScoreTask(tweets, lexicon, threshold);
+            pool.invoke(calculateSentimentScoreTask);
+            Pair<Tweet, Integer>[] scores = calculateSentimentScoreTask.getScores();
+            pool.invoke(new SortSentimentsTask(scores, threshold));
             return scores;
         };
     }
+
+    /**
+     * Benchmark lambda for in-place sentiment calculation and parallel counting sort.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sorted sentiment scores.
+     */
+    static Function<Integer, Object> calculateSentimentAndCountingSortTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            CalculateSentimentScoreTask calculateSentimentScoreTask = new CalculateSentimentScoreTask(tweets, lexicon, threshold);
+            pool.invoke(calculateSentimentScoreTask);
+            Pair<Tweet, Integer>[] scores = calculateSentimentScoreTask.getScores();
+            pool.invoke(new CountingSortSentimentsTask(scores, threshold));
+            return scores;
+        };
+    }
+
+    /**
+     * Benchmark lambda for sentiment calculation and sort on primitive score arrays.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return SentimentScores with the sorted order.
+     */
+    static Function<Integer, Object> scoreSentimentsAndSortTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            ScoreSentimentsTask scoreSentimentsTask = new ScoreSentimentsTask(tweets, lexicon, threshold);
+            pool.invoke(scoreSentimentsTask);
+            SentimentScores scores = scoreSentimentsTask.getResult();
+            pool.invoke(new SortSentimentScoresTask(scores, threshold));
+            return scores;
+        };
+    }
+
+    /**
+     * Benchmark lambda for sentiment calculation with the ASCII fast path, to compare with scoreSentimentsAndSortTaskFJ.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sentiment scores.
+     */
+    static Function<Integer, Object> scoreSentimentsAsciiTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            ScoreSentimentsTask scoreSentimentsTask = new ScoreSentimentsTask(tweets, lexicon, new TaskConfig(threshold, true));
+            pool.invoke(scoreSentimentsTask);
+            return scoreSentimentsTask.getResult().getScores();
+        };
+    }
+
+    /**
+     * Benchmark lambda for deduplicating the tweet texts and scoring every distinct text once.
+     * The first run over the whole dataset reports how many rows the deduplication saves.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sentiment scores.
+     */
+    static Function<Integer, Object> scoreSentimentsDedupedTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        boolean[] reported = new boolean[1];
+        return (Integer threshold) -> {
+            DuplicateTexts duplicates = pool.invoke(new DedupeTextsTask(tweets, threshold));
+            if (!reported[0] && (sample == null || tweets != sample.tweets)) {
+                System.out.print("(rows with the text of an earlier row: " + duplicates.getSavedRows()
+                        + ", " + duplicates.getUniqueCount() + " distinct texts) ");
+                reported[0] = true;
+            }
+            ScoreSentimentsDedupedTask scoreSentimentsTask = new ScoreSentimentsDedupedTask(tweets, duplicates, lexicon, threshold);
+            pool.invoke(scoreSentimentsTask);
+            return scoreSentimentsTask.getResult().getScores();
+        };
+    }
+
+    /**
+     * Benchmark lambda for counting hashtags over the columnar TweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return HashMap with count of hashtags.
+     */
+    static Function<Integer, Object> countHashtagsStoreTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> store.toHashtagMap(pool.invoke(new CountHashtagStoreTask(store, threshold)));
+    }
+
+    /**
+     * Benchmark lambda for concurrently counting hashtags over the columnar TweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return HashMap with count of hashtags.
+     */
+    static Function<Integer, Object> countHashtagsConcurrentStoreTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            AtomicIntegerArray hashtagCount = new AtomicIntegerArray(store.getHashtagCount());
+            pool.invoke(new CountHashtagConcurrentStoreTask(store, hashtagCount, threshold));
+            return hashtagCount;
+        };
+    }
+
+    /**
+     * Benchmark lambda for sentiment calculation over the columnar TweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sentiment scores, indexed like the store.
+     */
+    static Function<Integer, Object> calculateSentimentStoreTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            CalculateSentimentScoreStoreTask calculateSentimentScoreTask = new CalculateSentimentScoreStoreTask(store, lexicon, threshold);
+            pool.invoke(calculateSentimentScoreTask);
+            return calculateSentimentScoreTask.getScores();
+        };
+    }
+
+    /**
+     * Benchmark lambda for counting hashtags over the OffHeapTweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return HashMap with count of hashtags.
+     */
+    static Function<Integer, Object> countHashtagsOffHeapTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> offHeapStore.toHashtagMap(pool.invoke(new CountHashtagOffHeapTask(offHeapStore, threshold)));
+    }
+
+    /**
+     * Benchmark lambda for sentiment calculation straight from the UTF-8 text in the OffHeapTweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sentiment scores, indexed like the store.
+     */
+    static Function<Integer, Object> calculateSentimentOffHeapTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            CalculateSentimentScoreOffHeapTask calculateSentimentScoreTask = new CalculateSentimentScoreOffHeapTask(offHeapStore, lexicon, threshold);
+            pool.invoke(calculateSentimentScoreTask);
+            return calculateSentimentScoreTask.getScores();
+        };
+    }
+
+    /**
+     * Benchmark lambda for sentiment calculation with the SWAR ASCII fast path over the UTF-8 bytes of the OffHeapTweetStore.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return Array of sentiment scores, indexed like the store.
+     */
+    static Function<Integer, Object> calculateSentimentOffHeapAsciiTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            CalculateSentimentScoreOffHeapTask calculateSentimentScoreTask =
+                    new CalculateSentimentScoreOffHeapTask(offHeapStore, lexicon, new TaskConfig(threshold, true));
+            pool.invoke(calculateSentimentScoreTask);
+            return calculateSentimentScoreTask.getScores();
+        };
+    }
+
+    /**
+     * Benchmark lambda for hourly aggregation of tweets, sentiment and hashtags over the whole dataset.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return TimeBuckets with the aggregates per hour.
+     */
+    static Function<Integer, Object> aggregateTimeBucketsTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> pool.invoke(new AggregateTimeBucketsTask(
+                tweets, times, scores, dictionary, times.getMin(), times.getMax() + 1, TimeGranularity.HOUR, threshold));
+    }
+
+    /**
+     * Benchmark lambda for statistics per account, sorted by number of tweets.
+     * @param cores amount of cores to use in ForkJoinPool
+     * @return UserStats of every account, most active first.
+     */
+    static Function<Integer, Object> groupByUserTaskFJ(int cores) {
+        pool = new ForkJoinPool(cores);
+        return (Integer threshold) -> {
+            UserStats[] stats = pool.invoke(new GroupByUserTask(tweets, scores, dictionary, 5, threshold));
+            pool.invoke(new SortTask<>(stats, UserStats.Metric.TWEETS.comparator(true), threshold));
+            return stats;
+        };
+    }
 }
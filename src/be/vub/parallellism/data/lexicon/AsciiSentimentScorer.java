@@ -0,0 +1,166 @@
+package be.vub.parallellism.data.lexicon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sentiment scoring with a fast path for ASCII text, giving the same scores as SentimentScorer.scoreUnicode.
+ *
+ * In ASCII a letter is a byte b with (b | 0x20) in 'a'..'z', and folding it is setting bit 0x20,
+ * so the fast path needs no code point decoding, Character.isLetter or case table.
+ * UTF-8 bytes are classified 8 at a time in a long (SWAR): one test finds out whether a block is pure ASCII,
+ * two additions mark the letters of the block, and blocks that are all letters or all non-letters are skipped whole.
+ * Text that is a CharSequence is classified char by char, without the code point handling.
+ *
+ * A segment that contains non-ASCII goes through the Unicode path. Every ASCII non-letter ends a word in both paths,
+ * so a segment runs from the start of the word the non-ASCII char is in to the next ASCII non-letter,
+ * and the text around it stays on the fast path.
+ */
+public class AsciiSentimentScorer {
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long CASE_BITS = 0x2020202020202020L;
+    // Added to folded ASCII bytes: the high bit of a byte becomes set from 'a' on, and from 'z' + 1 on.
+    private static final long FROM_A = 0x1F1F1F1F1F1F1F1FL; // 0x80 - 'a'
+    private static final long AFTER_Z = 0x0505050505050505L; // 0x80 - ('z' + 1)
+
+    /**
+     * Score text[from, to).
+     * @param text Text that contains the range.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param lexicon Lexicon with positive and negative words.
+     * @return Number of positive words minus number of negative words.
+     */
+    public static int score(CharSequence text, int from, int to, SentimentLexicon lexicon) {
+        int score = 0;
+        int wordStart = -1; // Start of the current run of letters, -1 if not in a word.
+
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 128) {
+                int end = nextBoundary(text, i + 1, to);
+                score += SentimentScorer.scoreUnicode(text, wordStart >= 0 ? wordStart : i, end, lexicon);
+                wordStart = -1;
+                i = end; // text[end] is a non-letter or the end, nothing to do for it.
+            } else if (isLetter(c)) {
+                if (wordStart < 0)
+                    wordStart = i;
+            } else if (wordStart >= 0) {
+                score += lexicon.polarityAscii(text, wordStart, i);
+                wordStart = -1;
+            }
+        }
+        if (wordStart >= 0)
+            score += lexicon.polarityAscii(text, wordStart, to);
+        return score;
+    }
+
+    /**
+     * Score the UTF-8 bytes utf8[from, to), read with absolute gets.
+     * @param utf8 Buffer that contains the range.
+     * @param from Index of the first byte.
+     * @param to Index after the last byte.
+     * @param lexicon Lexicon with positive and negative words.
+     * @return Number of positive words minus number of negative words.
+     */
+    public static int score(ByteBuffer utf8, int from, int to, SentimentLexicon lexicon) {
+        int score = 0;
+        int wordStart = -1;
+        // getLong puts the first byte of a block in the high byte, unless the buffer is little-endian.
+        boolean bigEndian = utf8.order() == ByteOrder.BIG_ENDIAN;
+
+        int i = from;
+        while (i < to) {
+            if (i + Long.BYTES <= to) {
+                long block = utf8.getLong(i);
+                if ((block & HIGH_BITS) == 0) {
+                    long letters = letters(block);
+                    if (letters == HIGH_BITS) {
+                        // Eight letters: the current word goes on.
+                        if (wordStart < 0) wordStart = i;
+                    } else if (letters == 0) {
+                        // Eight non-letters: the current word ends before the block.
+                        if (wordStart >= 0) score += lexicon.polarityAscii(utf8, wordStart, i);
+                        wordStart = -1;
+                    } else {
+                        for (int k = 0; k < Long.BYTES; k++) {
+                            int shift = bigEndian ? 56 - 8 * k : 8 * k;
+                            if (((letters >>> shift) & 0x80) != 0) {
+                                if (wordStart < 0) wordStart = i + k;
+                            } else if (wordStart >= 0) {
+                                score += lexicon.polarityAscii(utf8, wordStart, i + k);
+                                wordStart = -1;
+                            }
+                        }
+                    }
+                    i += Long.BYTES;
+                    continue;
+                }
+            }
+
+            // Tail of the range or a block with non-ASCII: one byte at a time.
+            byte b = utf8.get(i);
+            if (b < 0) {
+                int end = nextBoundary(utf8, i + 1, to);
+                score += scoreUnicode(utf8, wordStart >= 0 ? wordStart : i, end, lexicon);
+                wordStart = -1;
+                i = end;
+            } else if (isLetter(b)) {
+                if (wordStart < 0) wordStart = i;
+                i++;
+            } else {
+                if (wordStart >= 0) score += lexicon.polarityAscii(utf8, wordStart, i);
+                wordStart = -1;
+                i++;
+            }
+        }
+        if (wordStart >= 0)
+            score += lexicon.polarityAscii(utf8, wordStart, to);
+        return score;
+    }
+
+    /**
+     * @param block Eight ASCII bytes.
+     * @return 0x80 in every byte of the block that is a letter, 0 in the others.
+     */
+    private static long letters(long block) {
+        long folded = block | CASE_BITS;
+        // No carries between bytes: folded bytes are below 0x80, the sums below 0x100.
+        return (folded + FROM_A) & ~(folded + AFTER_Z) & HIGH_BITS;
+    }
+
+    private static boolean isLetter(int c) {
+        return (char) ((c | 0x20) - 'a') < 26;
+    }
+
+    /**
+     * @return Index of the first ASCII non-letter in text[from, to), or to.
+     */
+    private static int nextBoundary(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to && (text.charAt(i) >= 128 || isLetter(text.charAt(i))))
+            i++;
+        return i;
+    }
+
+    /**
+     * @return Index of the first ASCII non-letter byte in utf8[from, to), or to.
+     */
+    private static int nextBoundary(ByteBuffer utf8, int from, int to) {
+        int i = from;
+        while (i < to && (utf8.get(i) < 0 || isLetter(utf8.get(i))))
+            i++;
+        return i;
+    }
+
+    /**
+     * Decode a segment that contains non-ASCII and score it on the Unicode path.
+     */
+    private static int scoreUnicode(ByteBuffer utf8, int from, int to, SentimentLexicon lexicon) {
+        byte[] bytes = new byte[to - from];
+        utf8.get(from, bytes);
+        String segment = new String(bytes, StandardCharsets.UTF_8);
+        return SentimentScorer.scoreUnicode(segment, 0, segment.length(), lexicon);
+    }
+}
@@ -0,0 +1,157 @@
+package be.vub.parallellism.data.lexicon;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * SentimentLexicon backed by an open addressing hash table with linear probing.
+ *
+ * The hash of a word is computed over the case-folded chars of the text range, and the probe compares
+ * the stored word with the range by folding the chars again. Positive and negative words live in the same table,
+ * so every word costs one hash computation and one probe sequence.
+ * The table is immutable after construction and can be shared by all threads.
+ */
+public class HashedSentimentLexicon implements SentimentLexicon {
+    private char[][] words;
+    private byte[] polarities;
+    private int mask;
+
+    /**
+     * Build the table from the word lists returned by WordListReader.
+     * @param positiveWords Positive words.
+     * @param negativeWords Negative words.
+     */
+    public HashedSentimentLexicon(HashSet<String> positiveWords, HashSet<String> negativeWords) {
+        // Keep the load factor below 0.5 so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(4, (positiveWords.size() + negativeWords.size()) * 2)) << 1;
+        words = new char[capacity][];
+        polarities = new byte[capacity];
+        mask = capacity - 1;
+
+        // Insert positive words first: Tweet.calculateSentimentScore checks the positive list first.
+        positiveWords.forEach((String word) -> insert(word, (byte) 1));
+        negativeWords.forEach((String word) -> insert(word, (byte) -1));
+    }
+
+    private void insert(String word, byte polarity) {
+        char[] chars = word.toCharArray();
+        int slot = hash(chars) & mask;
+        while (words[slot] != null) {
+            if (Arrays.equals(words[slot], chars)) return;
+            slot = (slot + 1) & mask;
+        }
+        words[slot] = chars;
+        polarities[slot] = polarity;
+    }
+
+    @Override
+    public int polarity(CharSequence text, int from, int to) {
+        int slot = hash(text, from, to) & mask;
+        char[] word;
+        while ((word = words[slot]) != null) {
+            if (matches(word, text, from, to))
+                return polarities[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    @Override
+    public int polarityAscii(CharSequence text, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++)
+            h = 31 * h + (text.charAt(i) | 0x20);
+        int slot = mix(h) & mask;
+        char[] word;
+        while ((word = words[slot]) != null) {
+            if (word.length == to - from && matchesAscii(word, text, from))
+                return polarities[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    @Override
+    public int polarityAscii(ByteBuffer utf8, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++)
+            h = 31 * h + (utf8.get(i) | 0x20);
+        int slot = mix(h) & mask;
+        char[] word;
+        while ((word = words[slot]) != null) {
+            if (word.length == to - from && matchesAscii(word, utf8, from))
+                return polarities[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    private static boolean matchesAscii(char[] word, CharSequence text, int from) {
+        for (int j = 0; j < word.length; j++)
+            if (word[j] != (text.charAt(from + j) | 0x20)) return false;
+        return true;
+    }
+
+    private static boolean matchesAscii(char[] word, ByteBuffer utf8, int from) {
+        for (int j = 0; j < word.length; j++)
+            if (word[j] != (utf8.get(from + j) | 0x20)) return false;
+        return true;
+    }
+
+    /**
+     * Hash of a stored word, equal to the hash of a text range that folds to the same chars.
+     */
+    private static int hash(char[] word) {
+        int h = 0;
+        for (char c : word)
+            h = 31 * h + c;
+        return mix(h);
+    }
+
+    /**
+     * Hash of the case-folded chars of text[from, to).
+     */
+    private static int hash(CharSequence text, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int folded = SentimentLexicon.foldCase(cp);
+            if (Character.isBmpCodePoint(folded)) {
+                h = 31 * h + folded;
+            } else {
+                h = 31 * h + Character.highSurrogate(folded);
+                h = 31 * h + Character.lowSurrogate(folded);
+            }
+        }
+        return mix(h);
+    }
+
+    /**
+     * Spread the bits of a String-style hash so linear probing with a power of two table works well.
+     */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compare a stored word with the case-folded chars of text[from, to).
+     */
+    private static boolean matches(char[] word, CharSequence text, int from, int to) {
+        int j = 0;
+        for (int i = from; i < to; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int folded = SentimentLexicon.foldCase(cp);
+            if (Character.isBmpCodePoint(folded)) {
+                if (j >= word.length || word[j++] != folded) return false;
+            } else {
+                if (j + 1 >= word.length || word[j++] != Character.highSurrogate(folded)
+                        || word[j++] != Character.lowSurrogate(folded)) return false;
+            }
+        }
+        return j == word.length;
+    }
+}
@@ -0,0 +1,62 @@
+package be.vub.parallellism.data.lexicon;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lookup structure for the sentiment of a single word.
+ *
+ * Words are looked up by a char range of the original tweet text, so no substring or lowercased copy is created.
+ * Implementations fold the case of the range themselves while comparing.
+ */
+public interface SentimentLexicon {
+
+    /**
+     * Look up the case-folded word text[from, to).
+     * @param text Text that contains the word.
+     * @param from Index of the first char of the word.
+     * @param to Index after the last char of the word.
+     * @return +1 for a positive word, -1 for a negative word, 0 otherwise. Positive wins if a word is in both lists.
+     */
+    int polarity(CharSequence text, int from, int to);
+
+    /**
+     * Look up a word of ASCII letters only, used by AsciiSentimentScorer.
+     * Folding an ASCII letter is setting bit 0x20, implementations can skip the code point handling of polarity.
+     * @param text Text that contains the word, text[from, to) are ASCII letters.
+     * @param from Index of the first char of the word.
+     * @param to Index after the last char of the word.
+     * @return Same as polarity(text, from, to).
+     */
+    default int polarityAscii(CharSequence text, int from, int to) {
+        return polarity(text, from, to);
+    }
+
+    /**
+     * Look up a word of ASCII letters only in UTF-8 bytes, used by AsciiSentimentScorer.
+     * @param utf8 Buffer that contains the word, the bytes [from, to) are ASCII letters. Read with absolute gets.
+     * @param from Index of the first byte of the word.
+     * @param to Index after the last byte of the word.
+     * @return Same as polarity on the decoded word.
+     */
+    default int polarityAscii(ByteBuffer utf8, int from, int to) {
+        StringBuilder word = new StringBuilder(to - from);
+        for (int i = from; i < to; i++)
+            word.append((char) utf8.get(i));
+        return polarity(word, 0, word.length());
+    }
+
+    /**
+     * Fold the case of a code point the way String.toLowerCase() does for the letters we look up.
+     * The only exception in String.toLowerCase() that changes the result is U+0130 (capital I with dot), which becomes
+     * "i" followed by a combining dot. The combining dot is no letter, so the tokenizer ends the word after the 'i'.
+     * @param codePoint Code point to fold.
+     * @return Lower case code point.
+     */
+    static int foldCase(int codePoint) {
+        if (codePoint < 128)
+            return (codePoint >= 'A' && codePoint <= 'Z') ? codePoint + ('a' - 'A') : codePoint;
+        if (codePoint == 0x130)
+            return 'i';
+        return Character.toLowerCase(codePoint);
+    }
+}
@@ -0,0 +1,73 @@
+package be.vub.parallellism.data.lexicon;
+
+/**
+ * Allocation-free sentiment scoring of a char range.
+ *
+ * Walks the chars of the text in place, folds case on the fly and looks up every run of letters
+ * as a char range in the lexicon. No lowercased copy, String[] or substring is created.
+ * Gives the same result as lowercasing the text, splitting on "\\P{L}+" and looking up every word.
+ * Case folding does not depend on the default locale (equal to toLowerCase() in non-Turkic locales).
+ *
+ * The caller picks the path per call: tasks pass TaskConfig.isAsciiFastPath(), AsciiSentimentScorer gives the same scores.
+ */
+public class SentimentScorer {
+    /**
+     * Score text[from, to) code point by code point.
+     * @param text Text that contains the range.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param lexicon Lexicon with positive and negative words.
+     * @return Number of positive words minus number of negative words.
+     */
+    public static int score(CharSequence text, int from, int to, SentimentLexicon lexicon) {
+        return scoreUnicode(text, from, to, lexicon);
+    }
+
+    /**
+     * Score text[from, to) with the ASCII fast path or the Unicode path.
+     * @param text Text that contains the range.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param ascii True for AsciiSentimentScorer, false for scoreUnicode.
+     * @return Number of positive words minus number of negative words.
+     */
+    public static int score(CharSequence text, int from, int to, SentimentLexicon lexicon, boolean ascii) {
+        if (ascii) return AsciiSentimentScorer.score(text, from, to, lexicon);
+        return scoreUnicode(text, from, to, lexicon);
+    }
+
+    /**
+     * Score text[from, to) code point by code point, for any Unicode text.
+     * @param text Text that contains the range.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param lexicon Lexicon with positive and negative words.
+     * @return Number of positive words minus number of negative words.
+     */
+    public static int scoreUnicode(CharSequence text, int from, int to, SentimentLexicon lexicon) {
+        int score = 0;
+        int wordStart = -1; // Start of the current run of letters, -1 if not in a word.
+
+        for (int i = from; i < to; ) {
+            int cp = Character.codePointAt(text, i);
+            int next = i + Character.charCount(cp);
+            if (Character.isLetter(SentimentLexicon.foldCase(cp))) {
+                if (wordStart < 0)
+                    wordStart = i;
+                // U+0130 lowercases to 'i' + combining dot, which ends the word.
+                if (cp == 0x130) {
+                    score += lexicon.polarity(text, wordStart, next);
+                    wordStart = -1;
+                }
+            } else if (wordStart >= 0) {
+                score += lexicon.polarity(text, wordStart, i);
+                wordStart = -1;
+            }
+            i = next;
+        }
+        if (wordStart >= 0)
+            score += lexicon.polarity(text, wordStart, to);
+        return score;
+    }
+}
@@ -0,0 +1,141 @@
+package be.vub.parallellism.data.lexicon;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * SentimentLexicon compiled to a char-indexed trie (a DFA without cycles) over positive and negative words.
+ *
+ * A lookup makes a single pass over the folded chars of the word: every char is mapped to its class in the alphabet
+ * of the lexicon and selects the next state in a flat transition table. A char that is not in the alphabet
+ * or has no transition ends the lookup early. The polarity of the final state is the result (+1, -1 or 0).
+ * The tables are immutable after construction and shared read-only by all threads.
+ */
+public class TrieSentimentLexicon implements SentimentLexicon {
+    // State 0 is the dead state, state 1 the root.
+    private static final int DEAD = 0;
+    private static final int ROOT = 1;
+
+    // Class of every ASCII char, 0 if the char does not occur in any word.
+    private int[] asciiClasses = new int[128];
+    // Non ASCII chars of the alphabet (sorted) and their classes.
+    private char[] otherChars = new char[0];
+    private int[] otherClasses = new int[0];
+    // Number of classes, including class 0 for unknown chars.
+    private int width;
+
+    // transitions[state * width + class] is the next state.
+    private int[] transitions;
+    private byte[] polarities;
+    private int states;
+
+    /**
+     * Compile the word lists returned by WordListReader.
+     * @param positiveWords Positive words.
+     * @param negativeWords Negative words.
+     */
+    public TrieSentimentLexicon(HashSet<String> positiveWords, HashSet<String> negativeWords) {
+        buildAlphabet(positiveWords, negativeWords);
+
+        states = 2;
+        transitions = new int[64 * width];
+        polarities = new byte[64];
+        // Positive words first: Tweet.calculateSentimentScore checks the positive list first.
+        positiveWords.forEach((String word) -> insert(word, (byte) 1));
+        negativeWords.forEach((String word) -> insert(word, (byte) -1));
+
+        transitions = Arrays.copyOf(transitions, states * width);
+        polarities = Arrays.copyOf(polarities, states);
+    }
+
+    /**
+     * Give every distinct char of the words its own class.
+     */
+    private void buildAlphabet(HashSet<String> positiveWords, HashSet<String> negativeWords) {
+        boolean[] ascii = new boolean[128];
+        StringBuilder other = new StringBuilder();
+        for (HashSet<String> words : Arrays.asList(positiveWords, negativeWords)) {
+            for (String word : words) {
+                for (int i = 0; i < word.length(); i++) {
+                    char c = word.charAt(i);
+                    if (c < 128) ascii[c] = true;
+                    else if (other.indexOf(String.valueOf(c)) < 0) other.append(c);
+                }
+            }
+        }
+
+        width = 1;
+        for (int c = 0; c < 128; c++)
+            if (ascii[c]) asciiClasses[c] = width++;
+        otherChars = other.toString().toCharArray();
+        Arrays.sort(otherChars);
+        otherClasses = new int[otherChars.length];
+        for (int i = 0; i < otherChars.length; i++)
+            otherClasses[i] = width++;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) return asciiClasses[c];
+        int i = Arrays.binarySearch(otherChars, c);
+        return i < 0 ? 0 : otherClasses[i];
+    }
+
+    private void insert(String word, byte polarity) {
+        int state = ROOT;
+        for (int i = 0; i < word.length(); i++) {
+            int index = state * width + classOf(word.charAt(i));
+            if (transitions[index] == DEAD) {
+                if (states == polarities.length) {
+                    polarities = Arrays.copyOf(polarities, states * 2);
+                    transitions = Arrays.copyOf(transitions, states * 2 * width);
+                }
+                transitions[index] = states++;
+            }
+            state = transitions[index];
+        }
+        // Keep the first polarity if a word is in both lists.
+        if (polarities[state] == 0)
+            polarities[state] = polarity;
+    }
+
+    @Override
+    public int polarity(CharSequence text, int from, int to) {
+        int state = ROOT;
+        for (int i = from; i < to && state != DEAD; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int folded = SentimentLexicon.foldCase(cp);
+            if (Character.isBmpCodePoint(folded)) {
+                state = transitions[state * width + classOf((char) folded)];
+            } else {
+                state = transitions[state * width + classOf(Character.highSurrogate(folded))];
+                state = transitions[state * width + classOf(Character.lowSurrogate(folded))];
+            }
+        }
+        return polarities[state];
+    }
+
+    @Override
+    public int polarityAscii(CharSequence text, int from, int to) {
+        int state = ROOT;
+        for (int i = from; i < to && state != DEAD; i++)
+            state = transitions[state * width + asciiClasses[text.charAt(i) | 0x20]];
+        return polarities[state];
+    }
+
+    @Override
+    public int polarityAscii(ByteBuffer utf8, int from, int to) {
+        int state = ROOT;
+        for (int i = from; i < to && state != DEAD; i++)
+            state = transitions[state * width + asciiClasses[utf8.get(i) | 0x20]];
+        return polarities[state];
+    }
+
+    /**
+     * @return Number of states of the trie, including the dead state.
+     */
+    public int getStates() {
+        return states;
+    }
+}
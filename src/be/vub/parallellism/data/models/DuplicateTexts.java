@@ -0,0 +1,58 @@
+package be.vub.parallellism.data.models;
+
+/**
+ * Rows of a Tweet[] grouped by identical tweetText, see DedupeTextsTask.
+ *
+ * canonical[i] is the lowest row with the same text as row i, so canonical[i] <= i and canonical[i] == i for the
+ * first occurrence of every text. Anything that only depends on the text can be computed for the unique rows
+ * and copied to the other rows through canonical.
+ */
+public class DuplicateTexts {
+    private final int[] canonical;
+    private final int[] uniqueRows;
+
+    /**
+     * @param canonical Lowest row with the same text, for every row.
+     * @param uniqueRows Rows with canonical[i] == i, ascending.
+     */
+    public DuplicateTexts(int[] canonical, int[] uniqueRows) {
+        this.canonical = canonical;
+        this.uniqueRows = uniqueRows;
+    }
+
+    public int size() {
+        return canonical.length;
+    }
+
+    /**
+     * @return Lowest row with the same text as row i.
+     */
+    public int getCanonical(int i) {
+        return canonical[i];
+    }
+
+    public int[] getCanonical() {
+        return canonical;
+    }
+
+    /**
+     * @return First row of every distinct text, ascending.
+     */
+    public int[] getUniqueRows() {
+        return uniqueRows;
+    }
+
+    /**
+     * @return Number of distinct texts.
+     */
+    public int getUniqueCount() {
+        return uniqueRows.length;
+    }
+
+    /**
+     * @return Number of rows that repeat the text of an earlier row, the work saved by computing per text.
+     */
+    public int getSavedRows() {
+        return canonical.length - uniqueRows.length;
+    }
+}
@@ -0,0 +1,33 @@
+package be.vub.parallellism.data.models;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only List of hashtags backed by their ids in a HashtagDictionary.
+ * Returned by ParseStringList when it encodes hashtags, so Tweet.getHashtags() keeps working
+ * and Tweet.getHashtagIds() gives the ids without any lookup.
+ */
+public class EncodedHashtagList extends AbstractList<String> implements RandomAccess {
+    private final int[] ids;
+    private final HashtagDictionary dictionary;
+
+    public EncodedHashtagList(int[] ids, HashtagDictionary dictionary) {
+        this.ids = ids;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public String get(int index) {
+        return dictionary.nameOf(ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    public int[] getIds() {
+        return ids;
+    }
+}
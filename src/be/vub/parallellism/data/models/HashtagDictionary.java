@@ -0,0 +1,67 @@
+package be.vub.parallellism.data.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary that gives every distinct hashtag a dense int id (0, 1, 2, ...).
+ *
+ * Ids are assigned at ingest time by ParseStringList, possibly from several reader threads at once.
+ * Counting can then use the ids as index in a primitive int[] histogram, and ids are only translated back
+ * to hashtags at the end.
+ */
+public class HashtagDictionary {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // names[id] is the hashtag of id. Written under the lock of this, read without it:
+    // a reader gets an id through the ConcurrentHashMap, which orders the read after the write of the name.
+    private volatile String[] names = new String[1024];
+    private int size;
+
+    /**
+     * Get the id of a hashtag, assigning the next free id if it is new.
+     * @param hashtag Hashtag to encode.
+     * @return Id of the hashtag.
+     */
+    public int idOf(String hashtag) {
+        Integer id = ids.get(hashtag);
+        if (id != null) return id;
+        return ids.computeIfAbsent(hashtag, this::assign);
+    }
+
+    private synchronized Integer assign(String hashtag) {
+        if (size == names.length)
+            names = Arrays.copyOf(names, size * 2);
+        names[size] = hashtag;
+        return size++;
+    }
+
+    /**
+     * @param id Id returned by idOf.
+     * @return The hashtag of the id.
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return Number of distinct hashtags, every id is below this number.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Translate a histogram indexed by hashtag id back to hashtags.
+     * @param counts Count for every hashtag id.
+     * @return HashMap from hashtag to count, only hashtags with a count above 0.
+     */
+    public HashMap<String, Integer> toMap(int[] counts) {
+        String[] names = this.names;
+        HashMap<String, Integer> result = new HashMap<>(counts.length * 4 / 3 + 1);
+        for (int id = 0; id < counts.length; id++)
+            if (counts[id] > 0)
+                result.put(names[id], counts[id]);
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package be.vub.parallellism.data.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Off-heap storage of the tweet fields the analysis reads: tweet ids, screen names and texts as UTF-8 Utf8Columns,
+ * hashtag ids in CSR form in a direct IntBuffer (the ids of tweet i are hashtagIds[hashtagOffsets[i], hashtagOffsets[i+1])).
+ *
+ * Millions of small heap Strings become a few large direct buffers, so the old generation stays small and full
+ * collections have almost nothing to trace. Tasks read the bytes in place through a reusable Utf8Chars,
+ * see CalculateSentimentScoreOffHeapTask and CountHashtagOffHeapTask.
+ *
+ * Append all tweets from one thread, then share the store read-only (e.g. by invoking tasks on a ForkJoinPool,
+ * which happens-before their execution).
+ */
+public class OffHeapTweetStore {
+    private final HashtagDictionary dictionary;
+    private final Utf8Column tweetids = new Utf8Column();
+    private final Utf8Column userScreenNames = new Utf8Column();
+    private final Utf8Column tweetTexts = new Utf8Column();
+    private int[] hashtagOffsets = new int[17];
+    private IntBuffer hashtagIds = allocateInts(64);
+    private int size;
+
+    /**
+     * @param dictionary Dictionary the hashtag ids refer to, shared with the tweets if they are encoded.
+     */
+    public OffHeapTweetStore(HashtagDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Copy the stored fields of a tweet, the tweet itself can be collected afterwards.
+     * @param tweet Tweet to append. Encoded hashtags must be encoded in the dictionary of this store.
+     */
+    public void append(Tweet tweet) {
+        tweetids.append(tweet.getTweetid());
+        userScreenNames.append(tweet.getUserScreenName());
+        tweetTexts.append(tweet.getTweetText());
+
+        int[] ids = tweet.getHashtagIds();
+        int count = ids != null ? ids.length : tweet.getHashtags().size();
+        if (hashtagIds.remaining() < count) {
+            IntBuffer grown = allocateInts(Math.max(hashtagIds.capacity() * 2, hashtagIds.position() + count));
+            hashtagIds.flip();
+            grown.put(hashtagIds);
+            hashtagIds = grown;
+        }
+        if (ids != null) hashtagIds.put(ids);
+        else for (String hashtag : tweet.getHashtags()) hashtagIds.put(dictionary.idOf(hashtag));
+
+        if (size + 1 == hashtagOffsets.length)
+            hashtagOffsets = Arrays.copyOf(hashtagOffsets, hashtagOffsets.length * 2);
+        hashtagOffsets[++size] = hashtagIds.position();
+    }
+
+    /**
+     * Append a batch of tweets, in order.
+     */
+    public void appendAll(Tweet[] tweets) {
+        for (Tweet tweet : tweets)
+            append(tweet);
+    }
+
+    private static IntBuffer allocateInts(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Copy of the id of tweet i on the heap.
+     */
+    public String getTweetid(int i) {
+        return tweetids.getString(i);
+    }
+
+    /**
+     * @return Copy of the screen name of tweet i on the heap.
+     */
+    public String getUserScreenName(int i) {
+        return userScreenNames.getString(i);
+    }
+
+    /**
+     * @return Copy of the text of tweet i on the heap. Use getTweetTexts().decode to read it without allocating.
+     */
+    public String getTweetText(int i) {
+        return tweetTexts.getString(i);
+    }
+
+    public Utf8Column getTweetids() {
+        return tweetids;
+    }
+
+    public Utf8Column getUserScreenNames() {
+        return userScreenNames;
+    }
+
+    public Utf8Column getTweetTexts() {
+        return tweetTexts;
+    }
+
+    public int getHashtagStart(int i) {
+        return hashtagOffsets[i];
+    }
+
+    public int getHashtagEnd(int i) {
+        return hashtagOffsets[i + 1];
+    }
+
+    /**
+     * @param j Index in the CSR id buffer, between getHashtagStart(i) and getHashtagEnd(i) for tweet i.
+     * @return Hashtag id.
+     */
+    public int getHashtagId(int j) {
+        return hashtagIds.get(j);
+    }
+
+    public HashtagDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Translate a histogram indexed by hashtag id back to hashtag names.
+     * @param counts Count for every hashtag id.
+     * @return HashMap from hashtag to count, only hashtags with a count above 0.
+     */
+    public HashMap<String, Integer> toHashtagMap(int[] counts) {
+        return dictionary.toMap(counts);
+    }
+
+    /**
+     * @return Bytes of direct memory held by this store.
+     */
+    public long getOffHeapBytes() {
+        return tweetids.getCapacity() + userScreenNames.getCapacity() + tweetTexts.getCapacity()
+                + (long) hashtagIds.capacity() * Integer.BYTES;
+    }
+}
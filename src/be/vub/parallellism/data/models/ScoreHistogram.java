@@ -0,0 +1,124 @@
+package be.vub.parallellism.data.models;
+
+import java.util.TreeMap;
+
+/**
+ * Distribution of sentiment scores: the number of tweets with every score.
+ * Grows to the range of scores that was added, so its size does not depend on the number of tweets.
+ */
+public class ScoreHistogram {
+    // counts[score - lowest] is the number of tweets with that score.
+    private long[] counts = new long[0];
+    private int lowest;
+    private long total;
+    private long sum;
+
+    /**
+     * Count a batch of scores.
+     * @param scores Scores to add.
+     */
+    public void add(int[] scores) {
+        if (scores.length == 0) return;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int score : scores) {
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        grow(min, max);
+        for (int score : scores) {
+            counts[score - lowest]++;
+            sum += score;
+        }
+        total += scores.length;
+    }
+
+    /**
+     * Add the counts of another histogram to this one.
+     * @param other Histogram to add.
+     */
+    public void add(ScoreHistogram other) {
+        if (other.total == 0) return;
+        grow(other.getMinScore(), other.getMaxScore());
+        for (int i = 0; i < other.counts.length; i++)
+            counts[other.lowest + i - lowest] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+    }
+
+    private void grow(int min, int max) {
+        if (counts.length == 0) {
+            lowest = min;
+            counts = new long[max - min + 1];
+            return;
+        }
+        int newLowest = Math.min(lowest, min);
+        int newHighest = Math.max(lowest + counts.length - 1, max);
+        if (newLowest == lowest && newHighest == lowest + counts.length - 1) return;
+        long[] grown = new long[newHighest - newLowest + 1];
+        System.arraycopy(counts, 0, grown, lowest - newLowest, counts.length);
+        counts = grown;
+        lowest = newLowest;
+    }
+
+    /**
+     * @return Number of tweets with the score.
+     */
+    public long getCount(int score) {
+        int i = score - lowest;
+        return i < 0 || i >= counts.length ? 0 : counts[i];
+    }
+
+    /**
+     * @return Number of scores added.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public double getMean() {
+        return (double) sum / total;
+    }
+
+    /**
+     * @return Lowest score with a count above 0, Integer.MAX_VALUE if the histogram is empty.
+     */
+    public int getMinScore() {
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] > 0) return lowest + i;
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return Highest score with a count above 0, Integer.MIN_VALUE if the histogram is empty.
+     */
+    public int getMaxScore() {
+        for (int i = counts.length - 1; i >= 0; i--)
+            if (counts[i] > 0) return lowest + i;
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return Scores with a count above 0 and their counts, in ascending score order.
+     */
+    public TreeMap<Integer, Long> toMap() {
+        TreeMap<Integer, Long> result = new TreeMap<>();
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] > 0) result.put(lowest + i, counts[i]);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ScoreHistogram && toMap().equals(((ScoreHistogram) o).toMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return toMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,73 @@
+package be.vub.parallellism.data.models;
+
+/**
+ * Sentiment scores of an array of tweets, stored as primitives instead of one Pair<Tweet, Integer> per tweet.
+ *
+ * scores[i] is the score of tweets[i]. After sorting, order is a permutation of the indices:
+ * order[k] is the index of the tweet at position k in ascending (stable) score order.
+ */
+public class SentimentScores {
+    private final Tweet[] tweets;
+    private final int[] scores;
+    private int[] order;
+
+    public SentimentScores(Tweet[] tweets) {
+        this.tweets = tweets;
+        this.scores = new int[tweets.length];
+    }
+
+    /**
+     * @param tweets Scored tweets.
+     * @param scores Score of every tweet, e.g. from a ScoreCache.
+     */
+    public SentimentScores(Tweet[] tweets, int[] scores) {
+        this.tweets = tweets;
+        this.scores = scores;
+    }
+
+    public int size() {
+        return tweets.length;
+    }
+
+    public Tweet[] getTweets() {
+        return tweets;
+    }
+
+    /**
+     * @return Scores indexed like the tweets, written by the scoring task.
+     */
+    public int[] getScores() {
+        return scores;
+    }
+
+    /**
+     * @return Sorted order of the tweets, or null if the scores were not sorted yet.
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    public void setOrder(int[] order) {
+        this.order = order;
+    }
+
+    public int getScore(int i) {
+        return scores[i];
+    }
+
+    /**
+     * @param k Position in sorted order.
+     * @return Tweet at position k.
+     */
+    public Tweet getSortedTweet(int k) {
+        return tweets[order[k]];
+    }
+
+    /**
+     * @param k Position in sorted order.
+     * @return Score of the tweet at position k.
+     */
+    public int getSortedScore(int k) {
+        return scores[order[k]];
+    }
+}
@@ -0,0 +1,228 @@
+package be.vub.parallellism.data.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Space-Saving summary (Metwally et al.) of the most frequent items in a stream, with a fixed number of counters.
+ *
+ * When a new item arrives and all counters are in use, the counter with the lowest count is given to the new item,
+ * and that lowest count becomes the error of the new item. For every monitored item:
+ *      count - error <= true count <= count
+ * and every item with a true count above getMaxError() is monitored. The error is at most getTotal() / capacity.
+ *
+ * Summaries are mergeable (Agarwal et al.), so every ForkJoin leaf can keep its own summary of fixed size
+ * and the summaries are combined at join: memory stays the same however large the input is.
+ * The counter with the lowest count is found with a binary min-heap over the counters.
+ */
+public class SpaceSavingSummary {
+    private final int capacity;
+    private final HashMap<String, Integer> slots;
+    private final String[] items;
+    private final long[] counts;
+    private final long[] errors;
+    // Min-heap of slots ordered by count, and the position of every slot in the heap.
+    private final int[] heap;
+    private final int[] heapPosition;
+    private int size;
+    private long total;
+
+    /**
+     * @param capacity Number of counters. Items with a frequency above 1/capacity of the stream are always found.
+     */
+    public SpaceSavingSummary(int capacity) {
+        this.capacity = capacity;
+        slots = new HashMap<>(capacity * 4 / 3 + 1);
+        items = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapPosition = new int[capacity];
+    }
+
+    /**
+     * Count one occurrence of an item.
+     * @param item Item to count.
+     */
+    public void add(String item) {
+        total++;
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(heapPosition[slot]);
+        } else if (size < capacity) {
+            put(item, 1, 0);
+        } else {
+            // Replace the item with the lowest count, its count is the error of the new item.
+            int min = heap[0];
+            slots.remove(items[min]);
+            slots.put(item, min);
+            items[min] = item;
+            errors[min] = counts[min];
+            counts[min]++;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merge two summaries into a new summary with the capacity of the first.
+     * An item that is missing in a full summary can have occurred at most its lowest count times,
+     * so that count is added to both the count and the error of the item.
+     * @param a First summary.
+     * @param b Second summary.
+     * @return Summary of both streams.
+     */
+    public static SpaceSavingSummary merge(SpaceSavingSummary a, SpaceSavingSummary b) {
+        long minA = a.size == a.capacity ? a.counts[a.heap[0]] : 0;
+        long minB = b.size == b.capacity ? b.counts[b.heap[0]] : 0;
+
+        int candidates = a.size + b.size;
+        String[] items = new String[candidates];
+        long[] counts = new long[candidates];
+        long[] errors = new long[candidates];
+        int n = 0;
+        for (int i = 0; i < a.size; i++) {
+            Integer other = b.slots.get(a.items[i]);
+            items[n] = a.items[i];
+            counts[n] = a.counts[i] + (other != null ? b.counts[other] : minB);
+            errors[n] = a.errors[i] + (other != null ? b.errors[other] : minB);
+            n++;
+        }
+        for (int i = 0; i < b.size; i++) {
+            if (a.slots.containsKey(b.items[i])) continue;
+            items[n] = b.items[i];
+            counts[n] = b.counts[i] + minA;
+            errors[n] = b.errors[i] + minA;
+            n++;
+        }
+
+        // Keep the candidates with the highest counts.
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (Integer x, Integer y) -> Long.compare(counts[y], counts[x]));
+
+        SpaceSavingSummary result = new SpaceSavingSummary(a.capacity);
+        for (int i = 0; i < Math.min(n, result.capacity); i++)
+            result.put(items[order[i]], counts[order[i]], errors[order[i]]);
+        result.total = a.total + b.total;
+        return result;
+    }
+
+    /**
+     * @param k Number of items.
+     * @return The k monitored items with the highest counts, highest first.
+     */
+    public List<Entry> getTop(int k) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (Integer x, Integer y) -> Long.compare(counts[y], counts[x]));
+
+        List<Entry> result = new ArrayList<>(Math.min(k, size));
+        for (int i = 0; i < Math.min(k, size); i++)
+            result.add(new Entry(items[order[i]], counts[order[i]], errors[order[i]]));
+        return result;
+    }
+
+    /**
+     * @return Number of items counted.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return Upper bound on the true count of any item that is not monitored (0 if the summary is not full).
+     */
+    public long getMaxError() {
+        return size == capacity ? counts[heap[0]] : 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Monitor a new item in a free counter.
+     */
+    private void put(String item, long count, long error) {
+        int slot = size++;
+        slots.put(item, slot);
+        items[slot] = item;
+        counts[slot] = count;
+        errors[slot] = error;
+        heap[slot] = slot;
+        heapPosition[slot] = slot;
+        siftUp(slot);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[position]]) return;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) smallest = left;
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) smallest = right;
+            if (smallest == position) return;
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+        heapPosition[heap[i]] = i;
+        heapPosition[heap[j]] = j;
+    }
+
+    /**
+     * Estimated count of a monitored item: the true count lies in [count - error, count].
+     */
+    public static class Entry {
+        private final String item;
+        private final long count;
+        private final long error;
+
+        Entry(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return Lower bound of the true count.
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return item + "=" + count + " (+-" + error + ")";
+        }
+    }
+}
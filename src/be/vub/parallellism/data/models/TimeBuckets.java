@@ -0,0 +1,172 @@
+package be.vub.parallellism.data.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Tweet count, sentiment and hashtag counts per time bucket.
+ *
+ * Bucket b covers [getBucketStart(b), getBucketStart(b) + granularity) in seconds since the epoch.
+ * Counters are primitive arrays indexed by bucket. The hashtags of bucket b are stored sparse:
+ * getHashtagIds(b)[j] was used getHashtagCounts(b)[j] times, highest count first.
+ */
+public class TimeBuckets {
+    private final TimeGranularity granularity;
+    private final long origin;
+    private final long[] tweetCounts;
+    private final long[] scoreSums;
+    private final int[][] hashtagIds;
+    private final int[][] hashtagCounts;
+    private final HashtagDictionary dictionary;
+
+    /**
+     * @param granularity Width of a bucket.
+     * @param origin Start of bucket 0 in seconds since the epoch.
+     * @param tweetCounts Number of tweets per bucket.
+     * @param scoreSums Sum of the sentiment scores per bucket, or null if the tweets were not scored.
+     * @param hashtagIds Hashtag ids per bucket, highest count first.
+     * @param hashtagCounts Counts of those ids.
+     * @param dictionary Dictionary the ids belong to.
+     */
+    public TimeBuckets(TimeGranularity granularity, long origin, long[] tweetCounts, long[] scoreSums,
+                       int[][] hashtagIds, int[][] hashtagCounts, HashtagDictionary dictionary) {
+        this.granularity = granularity;
+        this.origin = origin;
+        this.tweetCounts = tweetCounts;
+        this.scoreSums = scoreSums;
+        this.hashtagIds = hashtagIds;
+        this.hashtagCounts = hashtagCounts;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return Number of buckets.
+     */
+    public int size() {
+        return tweetCounts.length;
+    }
+
+    public TimeGranularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * @return Start of bucket b in seconds since the epoch.
+     */
+    public long getBucketStart(int b) {
+        return origin + b * granularity.getSeconds();
+    }
+
+    public long getTweetCount(int b) {
+        return tweetCounts[b];
+    }
+
+    /**
+     * @return Mean sentiment score of the tweets in bucket b, NaN if there are none or the tweets were not scored.
+     */
+    public double getMeanSentiment(int b) {
+        if (scoreSums == null || tweetCounts[b] == 0) return Double.NaN;
+        return (double) scoreSums[b] / tweetCounts[b];
+    }
+
+    public int[] getHashtagIds(int b) {
+        return hashtagIds[b];
+    }
+
+    public int[] getHashtagCounts(int b) {
+        return hashtagCounts[b];
+    }
+
+    /**
+     * @param b Bucket.
+     * @param k Number of hashtags.
+     * @return The k most used hashtags of bucket b with their counts, highest first.
+     */
+    public List<Pair<String, Integer>> getTopHashtags(int b, int k) {
+        List<Pair<String, Integer>> result = new ArrayList<>(Math.min(k, hashtagIds[b].length));
+        for (int j = 0; j < Math.min(k, hashtagIds[b].length); j++)
+            result.add(new Pair<>(dictionary.nameOf(hashtagIds[b][j]), hashtagCounts[b][j]));
+        return result;
+    }
+
+    /**
+     * Top hashtags of every window of consecutive buckets, e.g. window 24 on hourly buckets gives a sliding day.
+     * The window is kept as a running map from hashtag id to count, with the list of ids whose count is positive:
+     * every step subtracts the bucket that leaves, adds the bucket that enters, and picks the top k of that list.
+     * A step costs time in the size of those two buckets and the distinct hashtags of the window, not the whole window.
+     * @param window Number of buckets per window.
+     * @param k Number of hashtags per window.
+     * @return Element s holds the k most used hashtags of buckets [s, s + window), highest first.
+     */
+    public List<List<Pair<String, Integer>>> getSlidingTopHashtags(int window, int k) {
+        int windows = size() - window + 1;
+        List<List<Pair<String, Integer>>> result = new ArrayList<>(Math.max(0, windows));
+        if (window < 1 || windows < 1) return result;
+
+        SlidingCounts counts = new SlidingCounts(dictionary.size());
+        for (int b = 0; b < window - 1; b++)
+            counts.add(b, 1);
+
+        for (int s = 0; s < windows; s++) {
+            if (s > 0) counts.add(s - 1, -1);
+            counts.add(s + window - 1, 1);
+
+            // Min-heap of the k best ids so far, ties broken by id.
+            int[] count = counts.counts;
+            PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1,
+                    (Integer x, Integer y) -> count[x] != count[y] ? Integer.compare(count[x], count[y]) : Integer.compare(y, x));
+            for (int a = 0; a < counts.activeCount; a++) {
+                heap.add(counts.active[a]);
+                if (heap.size() > k) heap.poll();
+            }
+
+            List<Pair<String, Integer>> top = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int id = heap.poll();
+                top.add(new Pair<>(dictionary.nameOf(id), count[id]));
+            }
+            Collections.reverse(top);
+            result.add(top);
+        }
+        return result;
+    }
+
+    /**
+     * Hashtag counts of a window, with the ids whose count is positive in active[0, activeCount).
+     */
+    private class SlidingCounts {
+        private final int[] counts;
+        private final int[] active;
+        // Index of every active id in active.
+        private final int[] positions;
+        private int activeCount;
+
+        SlidingCounts(int hashtags) {
+            counts = new int[hashtags];
+            active = new int[hashtags];
+            positions = new int[hashtags];
+        }
+
+        /**
+         * Add (sign 1) or subtract (sign -1) the hashtag counts of bucket b.
+         */
+        void add(int b, int sign) {
+            for (int j = 0; j < hashtagIds[b].length; j++) {
+                int id = hashtagIds[b][j];
+                int before = counts[id];
+                counts[id] += sign * hashtagCounts[b][j];
+                if (before == 0 && counts[id] > 0) {
+                    positions[id] = activeCount;
+                    active[activeCount++] = id;
+                } else if (before > 0 && counts[id] == 0) {
+                    // Move the last active id into the gap.
+                    int last = active[--activeCount];
+                    active[positions[id]] = last;
+                    positions[last] = positions[id];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package be.vub.parallellism.data.models;
+
+/**
+ * Width of the time buckets tweets are aggregated in.
+ */
+public enum TimeGranularity {
+    MINUTE(60),
+    HOUR(60 * 60),
+    DAY(24 * 60 * 60);
+
+    private final long seconds;
+
+    TimeGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    /**
+     * @return Width of one bucket in seconds.
+     */
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * @param epochSecond Time in seconds since the epoch (UTC).
+     * @return Start of the bucket the time falls in.
+     */
+    public long floor(long epochSecond) {
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+}
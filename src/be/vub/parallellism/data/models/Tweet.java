@@ -1,4 +1,7 @@
 package be.vub.parallellism.data.models;
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.SentimentScorer;
+
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
@@ -86,6 +89,13 @@ public class Tweet {
         this.hashtags = hashtags;
     }
 
+    /**
+     * @return Ids of the hashtags in their HashtagDictionary, or null if the hashtags were not encoded while reading.
+     */
+    public int[] getHashtagIds() {
+        return (hashtags instanceof EncodedHashtagList) ? ((EncodedHashtagList) hashtags).getIds() : null;
+    }
+
     @Override
     public String toString() {
         return "Tweet{" +
@@ -111,4 +121,22 @@ public class Tweet {
                 score--;
         return score;
     }
+
+    /**
+     * Same score as calculateSentimentScore(HashSet, HashSet), without allocating. See SentimentScorer.
+     * @param lexicon Lexicon with positive and negative words.
+     * @return Number of positive words minus number of negative words.
+     */
+    public int calculateSentimentScore(SentimentLexicon lexicon) {
+        return SentimentScorer.score(tweetText, 0, tweetText.length(), lexicon);
+    }
+
+    /**
+     * @param lexicon Lexicon with positive and negative words.
+     * @param ascii True to score with the ASCII fast path, which gives the same score.
+     * @return Number of positive words minus number of negative words.
+     */
+    public int calculateSentimentScore(SentimentLexicon lexicon, boolean ascii) {
+        return SentimentScorer.score(tweetText, 0, tweetText.length(), lexicon, ascii);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+package be.vub.parallellism.data.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Columnar (struct-of-arrays) storage of tweets, as an alternative to Tweet[].
+ *
+ * Every field is its own column, so a task that only reads the text or the hashtags only touches that memory:
+ *  - identifiers, names and times are String columns,
+ *  - languages are dictionary encoded in a short column,
+ *  - all tweet texts are packed in one String, tweet i is text[textOffsets[i], textOffsets[i+1]),
+ *  - hashtags are stored in CSR form: the ids of tweet i are hashtagIds[hashtagOffsets[i], hashtagOffsets[i+1]),
+ *    hashtagNames[id] is the hashtag of an id.
+ * The store is immutable after construction and can be shared by all threads.
+ */
+public class TweetStore {
+    private final int size;
+
+    private final String[] tweetids;
+    private final String[] userids;
+    private final String[] userDisplayNames;
+    private final String[] userScreenNames;
+    private final String[] tweetTimes;
+
+    private final short[] accountLanguages;
+    private final short[] tweetLanguages;
+    private final String[] languageNames;
+
+    private final String text;
+    private final int[] textOffsets;
+
+    private final int[] hashtagOffsets;
+    private final int[] hashtagIds;
+    private final String[] hashtagNames;
+
+    /**
+     * Build a store from tweets in object layout.
+     * @param tweets Tweets to copy, in order.
+     */
+    public TweetStore(List<Tweet> tweets) {
+        size = tweets.size();
+        tweetids = new String[size];
+        userids = new String[size];
+        userDisplayNames = new String[size];
+        userScreenNames = new String[size];
+        tweetTimes = new String[size];
+        accountLanguages = new short[size];
+        tweetLanguages = new short[size];
+        textOffsets = new int[size + 1];
+        hashtagOffsets = new int[size + 1];
+
+        HashMap<String, Integer> languages = new HashMap<>();
+        HashMap<String, Integer> hashtags = new HashMap<>();
+        StringBuilder texts = new StringBuilder();
+        int[] ids = new int[Math.max(16, size)];
+        int hashtagCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            Tweet tweet = tweets.get(i);
+            tweetids[i] = tweet.getTweetid();
+            userids[i] = tweet.getUserid();
+            userDisplayNames[i] = tweet.getUserDisplayName();
+            userScreenNames[i] = tweet.getUserScreenName();
+            tweetTimes[i] = tweet.getTweetTime();
+            accountLanguages[i] = encode(languages, tweet.getAccountLanguage());
+            tweetLanguages[i] = encode(languages, tweet.getTweetLanguage());
+
+            // Offsets are ints, so the packed text is limited to Integer.MAX_VALUE chars.
+            if ((long) texts.length() + tweet.getTweetText().length() > Integer.MAX_VALUE)
+                throw new IllegalStateException("Tweet texts do not fit in one packed String.");
+            texts.append(tweet.getTweetText());
+            textOffsets[i + 1] = texts.length();
+
+            for (String hashtag : tweet.getHashtags()) {
+                if (hashtagCount == ids.length)
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                ids[hashtagCount++] = hashtags.computeIfAbsent(hashtag, (String key) -> hashtags.size());
+            }
+            hashtagOffsets[i + 1] = hashtagCount;
+        }
+
+        text = texts.toString();
+        hashtagIds = Arrays.copyOf(ids, hashtagCount);
+        hashtagNames = new String[hashtags.size()];
+        hashtags.forEach((String hashtag, Integer id) -> hashtagNames[id] = hashtag);
+        // Language code 0 is null.
+        languageNames = new String[languages.size() + 1];
+        languages.forEach((String language, Integer code) -> languageNames[code] = language);
+    }
+
+    /**
+     * Dictionary encode a language, null becomes 0.
+     */
+    private static short encode(HashMap<String, Integer> dictionary, String value) {
+        if (value == null) return 0;
+        return dictionary.computeIfAbsent(value, (String key) -> dictionary.size() + 1).shortValue();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getTweetid(int i) {
+        return tweetids[i];
+    }
+
+    public String getUserid(int i) {
+        return userids[i];
+    }
+
+    public String getUserDisplayName(int i) {
+        return userDisplayNames[i];
+    }
+
+    public String getUserScreenName(int i) {
+        return userScreenNames[i];
+    }
+
+    public String getTweetTime(int i) {
+        return tweetTimes[i];
+    }
+
+    public String getAccountLanguage(int i) {
+        return languageNames[accountLanguages[i]];
+    }
+
+    public String getTweetLanguage(int i) {
+        return languageNames[tweetLanguages[i]];
+    }
+
+    /**
+     * @return Copy of the text of tweet i. Use getText() with the offsets to read it without allocating.
+     */
+    public String getTweetText(int i) {
+        return text.substring(textOffsets[i], textOffsets[i + 1]);
+    }
+
+    /**
+     * @return All tweet texts packed in one String.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public int getTextStart(int i) {
+        return textOffsets[i];
+    }
+
+    public int getTextEnd(int i) {
+        return textOffsets[i + 1];
+    }
+
+    public int getHashtagStart(int i) {
+        return hashtagOffsets[i];
+    }
+
+    public int getHashtagEnd(int i) {
+        return hashtagOffsets[i + 1];
+    }
+
+    /**
+     * @param j Index in the CSR id array, between getHashtagStart(i) and getHashtagEnd(i) for tweet i.
+     * @return Hashtag id.
+     */
+    public int getHashtagId(int j) {
+        return hashtagIds[j];
+    }
+
+    public String getHashtagName(int id) {
+        return hashtagNames[id];
+    }
+
+    /**
+     * @return Number of distinct hashtags.
+     */
+    public int getHashtagCount() {
+        return hashtagNames.length;
+    }
+
+    /**
+     * Translate a histogram indexed by hashtag id back to hashtag names.
+     * @param counts Count for every hashtag id.
+     * @return HashMap from hashtag to count, only hashtags with a count above 0.
+     */
+    public HashMap<String, Integer> toHashtagMap(int[] counts) {
+        HashMap<String, Integer> result = new HashMap<>(counts.length * 4 / 3 + 1);
+        for (int id = 0; id < counts.length; id++)
+            if (counts[id] > 0)
+                result.put(hashtagNames[id], counts[id]);
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package be.vub.parallellism.data.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Activity and sentiment statistics of one account.
+ */
+public class UserStats {
+    /**
+     * Metrics accounts can be sorted by.
+     */
+    public enum Metric {
+        TWEETS(Comparator.comparingLong(UserStats::getTweetCount)),
+        MEAN_SENTIMENT(Comparator.comparingDouble(UserStats::getMeanSentiment)),
+        MIN_SENTIMENT(Comparator.comparingInt(UserStats::getMinSentiment)),
+        MAX_SENTIMENT(Comparator.comparingInt(UserStats::getMaxSentiment)),
+        HASHTAGS(Comparator.comparingLong(UserStats::getHashtagCount));
+
+        private final Comparator<UserStats> comparator;
+
+        Metric(Comparator<UserStats> comparator) {
+            this.comparator = comparator;
+        }
+
+        /**
+         * @return Ascending order on this metric, ties broken by userid so the order is deterministic.
+         */
+        public Comparator<UserStats> comparator() {
+            return comparator.thenComparing(UserStats::getUserid, Comparator.nullsFirst(Comparator.naturalOrder()));
+        }
+
+        /**
+         * @param descending True for the highest value first.
+         * @return Order on this metric, ties broken by userid. Sort in parallel with SortTask.
+         */
+        public Comparator<UserStats> comparator(boolean descending) {
+            return descending ? comparator().reversed() : comparator();
+        }
+    }
+
+    private final String userid;
+    private final String userScreenName;
+    private final long tweetCount;
+    private final long scoreSum;
+    private final int minSentiment;
+    private final int maxSentiment;
+    private final long hashtagCount;
+    private final int[] topHashtagIds;
+    private final int[] topHashtagCounts;
+    private final HashtagDictionary dictionary;
+
+    /**
+     * @param userid Account id.
+     * @param userScreenName Screen name of the first tweet of the account.
+     * @param tweetCount Number of tweets.
+     * @param scoreSum Sum of the sentiment scores of the tweets.
+     * @param minSentiment Lowest sentiment score.
+     * @param maxSentiment Highest sentiment score.
+     * @param hashtagCount Number of hashtags used, with repetitions.
+     * @param topHashtagIds Most used hashtags, highest count first.
+     * @param topHashtagCounts Counts of those hashtags.
+     * @param dictionary Dictionary the hashtag ids belong to.
+     */
+    public UserStats(String userid, String userScreenName, long tweetCount, long scoreSum, int minSentiment, int maxSentiment,
+                     long hashtagCount, int[] topHashtagIds, int[] topHashtagCounts, HashtagDictionary dictionary) {
+        this.userid = userid;
+        this.userScreenName = userScreenName;
+        this.tweetCount = tweetCount;
+        this.scoreSum = scoreSum;
+        this.minSentiment = minSentiment;
+        this.maxSentiment = maxSentiment;
+        this.hashtagCount = hashtagCount;
+        this.topHashtagIds = topHashtagIds;
+        this.topHashtagCounts = topHashtagCounts;
+        this.dictionary = dictionary;
+    }
+
+    public String getUserid() {
+        return userid;
+    }
+
+    public String getUserScreenName() {
+        return userScreenName;
+    }
+
+    public long getTweetCount() {
+        return tweetCount;
+    }
+
+    public double getMeanSentiment() {
+        return (double) scoreSum / tweetCount;
+    }
+
+    public int getMinSentiment() {
+        return minSentiment;
+    }
+
+    public int getMaxSentiment() {
+        return maxSentiment;
+    }
+
+    public long getHashtagCount() {
+        return hashtagCount;
+    }
+
+    /**
+     * @return Most used hashtags of the account with their counts, highest first.
+     */
+    public List<Pair<String, Integer>> getTopHashtags() {
+        List<Pair<String, Integer>> result = new ArrayList<>(topHashtagIds.length);
+        for (int j = 0; j < topHashtagIds.length; j++)
+            result.add(new Pair<>(dictionary.nameOf(topHashtagIds[j]), topHashtagCounts[j]));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s): %d tweets, sentiment %.3f [%d, %d], %d hashtags %s", userid, userScreenName,
+                tweetCount, getMeanSentiment(), minSentiment, maxSentiment, hashtagCount, getTopHashtags());
+    }
+}
@@ -0,0 +1,81 @@
+package be.vub.parallellism.data.models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable CharSequence decoded from UTF-8 bytes in a ByteBuffer.
+ *
+ * One instance is kept per thread (or per ForkJoin leaf) and refilled for every string, so reading a Utf8Column
+ * allocates nothing per value. Malformed input decodes to U+FFFD, like new String(bytes, UTF_8).
+ * Not thread-safe.
+ */
+public class Utf8Chars implements CharSequence {
+    private char[] chars = new char[256];
+    private int length;
+
+    /**
+     * Decode buffer[offset, offset + bytes) with absolute gets, the position of the buffer is not used.
+     * @return This sequence, holding the decoded chars.
+     */
+    public Utf8Chars decode(ByteBuffer buffer, int offset, int bytes) {
+        // A UTF-8 byte never decodes to more than one char.
+        if (bytes > chars.length)
+            chars = new char[Math.max(bytes, chars.length * 2)];
+        int n = 0;
+        int i = offset;
+        int end = offset + bytes;
+        while (i < end) {
+            int b = buffer.get(i++);
+            if (b >= 0) {
+                chars[n++] = (char) b;
+                continue;
+            }
+            int cp;
+            int continuation;
+            if ((b & 0xE0) == 0xC0) { cp = b & 0x1F; continuation = 1; }
+            else if ((b & 0xF0) == 0xE0) { cp = b & 0x0F; continuation = 2; }
+            else if ((b & 0xF8) == 0xF0) { cp = b & 0x07; continuation = 3; }
+            else { chars[n++] = '\uFFFD'; continue; }
+
+            boolean valid = i + continuation <= end;
+            for (int k = 0; valid && k < continuation; k++) {
+                int c = buffer.get(i + k);
+                valid = (c & 0xC0) == 0x80;
+                cp = (cp << 6) | (c & 0x3F);
+            }
+            if (!valid || cp > Character.MAX_CODE_POINT || Character.isSurrogate((char) cp) && cp <= 0xFFFF) {
+                chars[n++] = '\uFFFD';
+                continue;
+            }
+            i += continuation;
+            if (Character.isBmpCodePoint(cp)) {
+                chars[n++] = (char) cp;
+            } else {
+                chars[n++] = Character.highSurrogate(cp);
+                chars[n++] = Character.lowSurrogate(cp);
+            }
+        }
+        length = n;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
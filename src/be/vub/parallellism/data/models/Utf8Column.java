@@ -0,0 +1,128 @@
+package be.vub.parallellism.data.models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Column of strings stored as UTF-8 in off-heap memory (direct ByteBuffers).
+ *
+ * Strings are appended to chunks that double in size up to CHUNK_SIZE bytes, a string never spans two chunks. Every string has a handle
+ * (chunk index in the high 32 bits, offset in the chunk in the low 32 bits) and a byte length, -1 for null.
+ * The heap only holds the chunk objects and two primitive arrays, so the garbage collector has a handful of objects
+ * to trace instead of one String per value.
+ *
+ * Append from one thread, then share the column read-only: readers only use absolute gets, which do not touch
+ * the position of the buffers. Direct memory is released when the column is garbage collected.
+ */
+public class Utf8Column {
+    // Bytes of the first chunk and the largest chunk. Larger strings get a chunk of their own.
+    private static final int FIRST_CHUNK_SIZE = 1 << 16;
+    public static int CHUNK_SIZE = 1 << 26;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+    private long[] handles = new long[16];
+    private int[] lengths = new int[16];
+    private int size;
+    private long bytes;
+
+    /**
+     * Append a string.
+     * @param value String to append, may be null.
+     * @return Index of the string.
+     */
+    public int append(String value) {
+        if (size == handles.length) {
+            handles = Arrays.copyOf(handles, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        if (value == null) {
+            lengths[size] = -1;
+            return size++;
+        }
+
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < encoded.length) {
+            int capacity = chunk == null ? FIRST_CHUNK_SIZE : Math.min(CHUNK_SIZE, chunk.capacity() * 2);
+            chunk = ByteBuffer.allocateDirect(Math.max(capacity, encoded.length));
+            chunks.add(chunk);
+        }
+        handles[size] = (long) (chunks.size() - 1) << 32 | chunk.position();
+        lengths[size] = encoded.length;
+        chunk.put(encoded);
+        bytes += encoded.length;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Handle of string i, see chunkOf and offsetOf.
+     */
+    public long getHandle(int i) {
+        return handles[i];
+    }
+
+    /**
+     * @return Length of string i in UTF-8 bytes, -1 for null.
+     */
+    public int getLength(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * @return Chunk the string with this handle is stored in.
+     */
+    public ByteBuffer chunkOf(long handle) {
+        return chunks.get((int) (handle >>> 32));
+    }
+
+    /**
+     * @return Offset of the string with this handle in its chunk.
+     */
+    public static int offsetOf(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Decode string i into a reusable buffer, without creating a String.
+     * @param i Index of the string, null decodes to an empty sequence.
+     * @param chars Buffer to decode into.
+     * @return chars, holding string i.
+     */
+    public Utf8Chars decode(int i, Utf8Chars chars) {
+        if (lengths[i] < 0) return chars.decode(null, 0, 0);
+        return chars.decode(chunkOf(handles[i]), offsetOf(handles[i]), lengths[i]);
+    }
+
+    /**
+     * @return Copy of string i on the heap.
+     */
+    public String getString(int i) {
+        if (lengths[i] < 0) return null;
+        byte[] encoded = new byte[lengths[i]];
+        chunkOf(handles[i]).get(offsetOf(handles[i]), encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Bytes of UTF-8 stored.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Bytes of direct memory allocated for the chunks.
+     */
+    public long getCapacity() {
+        long capacity = 0;
+        for (ByteBuffer chunk : chunks)
+            capacity += chunk.capacity();
+        return capacity;
+    }
+}
@@ -0,0 +1,87 @@
+package be.vub.parallellism.data.readers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Cheap fingerprint of a source file: size, modification time and a CRC32 of the first and last block.
+ * Used to decide if data derived from the file (snapshots, caches) is still valid.
+ * Hashing only the head and the tail keeps the check in the order of milliseconds for multi GB files,
+ * the size and time catch rewrites that keep both ends.
+ */
+public class FileFingerprint {
+    // Bytes hashed at the start and at the end of the file.
+    private static final int BLOCK = 1 << 20;
+
+    private final long size;
+    private final long modified;
+    private final long hash;
+
+    public FileFingerprint(long size, long modified, long hash) {
+        this.size = size;
+        this.modified = modified;
+        this.hash = hash;
+    }
+
+    /**
+     * Compute the fingerprint of a file.
+     * @param file Path to the file.
+     * @return Fingerprint of its current contents.
+     */
+    public static FileFingerprint of(Path file) throws IOException {
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            update(crc, channel, 0, Math.min(size, BLOCK));
+            if (size > BLOCK)
+                update(crc, channel, Math.max(BLOCK, size - BLOCK), size);
+        }
+        return new FileFingerprint(size, modified, crc.getValue());
+    }
+
+    private static void update(CRC32 crc, FileChannel channel, long lo, long hi) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (hi - lo));
+        while (buffer.hasRemaining() && channel.read(buffer, lo + buffer.position()) >= 0) ;
+        buffer.flip();
+        crc.update(buffer);
+    }
+
+    public static FileFingerprint read(DataInput in) throws IOException {
+        return new FileFingerprint(in.readLong(), in.readLong(), in.readLong());
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(size);
+        out.writeLong(modified);
+        out.writeLong(hash);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FileFingerprint)) return false;
+        FileFingerprint other = (FileFingerprint) o;
+        return size == other.size && modified == other.modified && hash == other.hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(size * 31 + modified) ^ Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "FileFingerprint{size=" + size + ", modified=" + modified + ", hash=" + Long.toHexString(hash) + '}';
+    }
+}
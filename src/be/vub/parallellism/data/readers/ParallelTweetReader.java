@@ -0,0 +1,329 @@
+package be.vub.parallellism.data.readers;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.io.CsvBeanReader;
+import org.supercsv.io.ICsvBeanReader;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parallel version of TweetReader.
+ *
+ * The file is split in byte ranges of roughly the same size. Every range is realigned to the start of the next record,
+ * taking quoted (multi-line) fields into account, and parsed on a worker of a ForkJoinPool.
+ * The records are returned in the same order as in the file.
+ *
+ * Realigning happens in two passes:
+ *  1. Every range counts its quotes and remembers the first newline after which the quote count is even,
+ *     once assuming the range starts outside a quoted field and once assuming it starts inside one.
+ *  2. A prefix sum over the quote counts tells for every range whether it starts inside a quoted field,
+ *     which selects the correct newline. Escaped quotes ("") do not change the parity, so they need no special case.
+ *
+ * Like the FileReader in TweetReader, the ranges are decoded with the default charset, which has to be ASCII compatible.
+ */
+public class ParallelTweetReader {
+    // Size of the byte ranges the file is split in.
+    static int RANGE_SIZE = 16 * 1024 * 1024;
+    // Smallest range a shard is split in, smaller ranges cost more in set-up than they win in parallelism.
+    static int MIN_SHARD_RANGE_SIZE = 256 * 1024;
+
+    static public ArrayList<Tweet> readData(String file, ForkJoinPool pool) throws IOException {
+        return readData(file, pool, Double.POSITIVE_INFINITY, any -> true);
+    }
+
+    static public ArrayList<Tweet> readData(String file, ForkJoinPool pool, long howMany) throws IOException {
+        return readData(file, pool, howMany, any -> true);
+    }
+
+    static public ArrayList<Tweet> readData(String file, ForkJoinPool pool, Function<Tweet, Boolean> shouldInclude) throws IOException {
+        return readData(file, pool, Double.POSITIVE_INFINITY, shouldInclude);
+    }
+
+    /**
+     * Read all tweets of a file in parallel and encode their hashtags to ids while parsing.
+     * @param file Path to the data
+     * @param pool ForkJoinPool to parse the ranges on
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists
+     * @return A list of records representing tweets
+     */
+    static public ArrayList<Tweet> readData(String file, ForkJoinPool pool, HashtagDictionary dictionary) throws IOException {
+        return readData(file, pool, Double.POSITIVE_INFINITY, any -> true, TweetReader.processors(dictionary));
+    }
+
+    /**
+     * Read a file of tweets in parallel and return an in-memory list of records in file order.
+     * Ranges are parsed in waves of pool.getParallelism() ranges, so a small howMany does not parse the whole file.
+     *
+     * @param file Path to the data
+     * @param pool ForkJoinPool to parse the ranges on
+     * @param howMany How many records do you want to read?
+     * @param shouldInclude Lambda to filter csv records, called from several threads at once
+     * @return A list of records representing tweets
+     */
+    static public ArrayList<Tweet> readData(String file, ForkJoinPool pool, double howMany, Function<Tweet, Boolean> shouldInclude) throws IOException {
+        return readData(file, pool, howMany, shouldInclude, TweetReader.processors);
+    }
+
+    /**
+     * Split a file in shards of roughly the same number of bytes, every shard starts at a record.
+     * @param file Path to the data
+     * @param shards Number of shards
+     * @param pool ForkJoinPool to scan the file on
+     * @return Start offsets of the shards, the last element is the size of the file. Shards can be empty.
+     */
+    static public long[] splitShards(String file, int shards, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+            return splitRecords(channel, pool, 0, size, Math.max(1, (size + shards - 1) / shards));
+        }
+    }
+
+    /**
+     * Read the records of one shard of a file in parallel, in file order.
+     * @param file Path to the data
+     * @param lo Offset of the first record of the shard, e.g. from splitShards. Offset 0 skips the header.
+     * @param hi Offset of the first record after the shard.
+     * @param pool ForkJoinPool to parse the ranges on
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists
+     * @return A list of records representing the tweets of the shard
+     */
+    static public ArrayList<Tweet> readShard(String file, long lo, long hi, ForkJoinPool pool,
+                                             HashtagDictionary dictionary) throws IOException {
+        // Small shards are split in smaller ranges, so every worker of the pool gets one.
+        long rangeSize = Math.min(RANGE_SIZE, Math.max(MIN_SHARD_RANGE_SIZE, (hi - lo) / Math.max(1, pool.getParallelism())));
+        return readData(file, pool, lo, hi, rangeSize, Double.POSITIVE_INFINITY, any -> true, TweetReader.processors(dictionary));
+    }
+
+    /**
+     * Find where the complete records after an offset end, for a file that is still being appended to.
+     * A record is complete once its newline is written, a newline inside a quoted field does not count.
+     * @param file Path to the data
+     * @param from Offset of a record start, e.g. the end of the records that were already read.
+     * @param limit Preferred end: the last complete record that ends at or before limit is taken.
+     *              If no record ends before limit, the first complete record is taken however long it is.
+     * @return Offset after the last complete record, from if there is no complete record after from.
+     */
+    static public long completeRecordsEnd(String file, long from, long limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            long end = from;
+            long position = from;
+            long quotes = 0;
+            while (end == from || position < limit) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    byte current = buffer.get(i);
+                    if (current == '"') {
+                        quotes++;
+                    } else if (current == '\n' && (quotes & 1) == 0) {
+                        if (position + i + 1 > limit && end > from) return end;
+                        end = position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return end;
+        }
+    }
+
+    private static ArrayList<Tweet> readData(String file, ForkJoinPool pool, double howMany, Function<Tweet, Boolean> shouldInclude,
+                                             CellProcessor[] processors) throws IOException {
+        return readData(file, pool, 0, Long.MAX_VALUE, RANGE_SIZE, howMany, shouldInclude, processors);
+    }
+
+    private static ArrayList<Tweet> readData(String file, ForkJoinPool pool, long from, long to, long rangeSize, double howMany,
+                                             Function<Tweet, Boolean> shouldInclude, CellProcessor[] processors) throws IOException {
+        ArrayList<Tweet> result = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long[] starts = splitRecords(channel, pool, from, Math.min(to, channel.size()), rangeSize);
+            int ranges = starts.length - 1;
+            int wave = Math.max(1, pool.getParallelism());
+
+            for (int r = 0; r < ranges && result.size() < howMany; r += wave) {
+                List<ParseRangeTask> tasks = new ArrayList<>(wave);
+                for (int i = r; i < Math.min(r + wave, ranges); i++)
+                    tasks.add(new ParseRangeTask(channel, starts[i], starts[i + 1], starts[i] == 0, shouldInclude, processors));
+                // Run the wave in parallel and append the results in range order.
+                pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+                for (ParseRangeTask task : tasks) {
+                    for (Tweet tweet : task.join()) {
+                        if (result.size() >= howMany) break;
+                        result.add(tweet);
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * Split the file in byte ranges and realign every range to the start of a record.
+     * @param channel Channel of the file to split.
+     * @param pool ForkJoinPool to scan the ranges on.
+     * @return Start offsets of the ranges, the last element is the size of the file. Ranges can be empty.
+     */
+    static long[] splitRecords(FileChannel channel, ForkJoinPool pool) throws IOException {
+        return splitRecords(channel, pool, 0, channel.size(), RANGE_SIZE);
+    }
+
+    /**
+     * Split the bytes from to to of the file in ranges and realign every range to the start of a record.
+     * @param from Offset of a record start (outside of a quoted field), usually 0.
+     * @param to End of the part to split.
+     * @param rangeSize Size of the ranges before realigning.
+     * @return Start offsets of the ranges, the first element is from and the last element is to. Ranges can be empty.
+     */
+    private static long[] splitRecords(FileChannel channel, ForkJoinPool pool, long from, long to, long rangeSize) throws IOException {
+        long size = to - from;
+        int ranges = (int) Math.max(1, (size + rangeSize - 1) / rangeSize);
+
+        List<ScanRangeTask> scans = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++)
+            scans.add(new ScanRangeTask(channel, from + i * rangeSize, Math.min(to, from + (i + 1) * rangeSize)));
+        try {
+            pool.submit(() -> ForkJoinTask.invokeAll(scans)).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long[] starts = new long[ranges + 1];
+        starts[ranges] = to;
+        // Prefix sum of quote counts gives the quote parity at the start of every range.
+        long quotes = 0;
+        for (int i = 0; i < ranges; i++) {
+            ScanRangeTask scan = scans.get(i);
+            starts[i] = (i == 0) ? from : scan.join()[(int) (quotes & 1)];
+            quotes += scan.quotes;
+        }
+        // A range without a suitable newline lies inside one long record: it starts where the next range starts.
+        for (int i = ranges - 1; i > 0; i--)
+            if (starts[i] < 0 || starts[i] > starts[i + 1])
+                starts[i] = starts[i + 1];
+        return starts;
+    }
+
+    /**
+     * Read the bytes lo to hi of the channel. Positional reads do not move the channel, so workers can share it.
+     */
+    private static byte[] readRange(FileChannel channel, long lo, long hi) {
+        byte[] bytes = new byte[(int) (hi - lo)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, lo + buffer.position()) < 0) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * First pass: count the quotes in a range and find the candidate record starts.
+     * Result[p] is the offset right after the first newline that ends a record when the range starts with quote parity p,
+     * or -1 if there is no such newline in the range.
+     */
+    private static class ScanRangeTask extends RecursiveTask<long[]> {
+        private FileChannel channel;
+        private long lo;
+        private long hi;
+        private long quotes;
+
+        ScanRangeTask(FileChannel channel, long lo, long hi) {
+            this.channel = channel;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            long[] candidates = {-1, -1};
+            byte[] bytes = readRange(channel, lo, hi);
+            int count = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '"') {
+                    count++;
+                } else if (bytes[i] == '\n') {
+                    // Outside of a quoted field when (start parity + quotes seen) is even.
+                    int parity = count & 1;
+                    if (candidates[parity] < 0)
+                        candidates[parity] = lo + i + 1;
+                    if (candidates[0] >= 0 && candidates[1] >= 0) {
+                        // Both candidates found, only the quotes still need counting.
+                        for (int j = i + 1; j < bytes.length; j++)
+                            if (bytes[j] == '"') count++;
+                        break;
+                    }
+                }
+            }
+            quotes = count;
+            return candidates;
+        }
+    }
+
+    /**
+     * Second pass: parse the records of a realigned range with a CsvBeanReader.
+     */
+    private static class ParseRangeTask extends RecursiveTask<ArrayList<Tweet>> {
+        private FileChannel channel;
+        private long lo;
+        private long hi;
+        private boolean hasHeader;
+        private Function<Tweet, Boolean> shouldInclude;
+        private CellProcessor[] processors;
+
+        ParseRangeTask(FileChannel channel, long lo, long hi, boolean hasHeader, Function<Tweet, Boolean> shouldInclude,
+                       CellProcessor[] processors) {
+            this.channel = channel;
+            this.lo = lo;
+            this.hi = hi;
+            this.hasHeader = hasHeader;
+            this.shouldInclude = shouldInclude;
+            this.processors = processors;
+        }
+
+        @Override
+        protected ArrayList<Tweet> compute() {
+            ArrayList<Tweet> result = new ArrayList<>();
+            if (lo >= hi) return result;
+
+            byte[] bytes = readRange(channel, lo, hi);
+            try (ICsvBeanReader beanReader = new CsvBeanReader(
+                    new InputStreamReader(new ByteArrayInputStream(bytes), Charset.defaultCharset()), CsvPreference.STANDARD_PREFERENCE)) {
+                if (hasHeader)
+                    beanReader.getHeader(true);
+
+                Tweet tweet;
+                while ((tweet = beanReader.read(Tweet.class, TweetReader.columnToFieldMapping, processors)) != null) {
+                    if (shouldInclude.apply(tweet))
+                        result.add(tweet);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package be.vub.parallellism.data.readers;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Undecoded csv row: the column values as plain strings, before any cell processor ran.
+ * Filters on a RawRecord run before a Tweet is built, so rejected rows cost no decoding.
+ * A reader reuses one record for every row, do not keep a reference to it.
+ */
+public class RawRecord {
+    private final HashMap<String, Integer> columns;
+    private List<String> values;
+    private long line;
+
+    /**
+     * @param header Column names from the header of the csv.
+     */
+    RawRecord(String[] header) {
+        columns = new HashMap<>(header.length * 4 / 3 + 1);
+        for (int i = 0; i < header.length; i++)
+            columns.put(header[i], i);
+    }
+
+    void reset(List<String> values, long line) {
+        this.values = values;
+        this.line = line;
+    }
+
+    /**
+     * @param column Name of the column in the header of the csv, e.g. "tweet_language".
+     * @return Raw value, null for an empty column.
+     */
+    public String get(String column) {
+        Integer index = columns.get(column);
+        if (index == null)
+            throw new IllegalArgumentException("No column " + column + " in the header.");
+        return values.get(index);
+    }
+
+    /**
+     * @return Raw value of a mapped column, null for an empty column.
+     */
+    public String get(TweetColumn column) {
+        return values.get(column.getIndex());
+    }
+
+    /**
+     * @return Line of the file the row ends on.
+     */
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,231 @@
+package be.vub.parallellism.data.readers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Persistent cache of sentiment scores, so repeated runs over the same dataset do not have to score it again.
+ *
+ * Layout:
+ *  header : magic (long), version (int), fingerprint of the dataset (3 longs), fingerprint of the lexicon (long),
+ *           number of rows (int)
+ *  hashes : 64-bit hash of the text of every row (long per row)
+ *  scores : score of every row (int per row)
+ * The file is memory-mapped and read in place.
+ *
+ * A score only depends on the text of a tweet and the lexicon. A cache made with another lexicon is never used.
+ * A cache made from another version of the dataset still gives the score of every text it has seen: a row with the same
+ * text hash as the cached row at the same index, or as any cached row, gets its cached score and only the other rows
+ * are scored again. Two different texts with the same 64-bit hash would share a score, which is unlikely enough to ignore.
+ */
+public class ScoreCache {
+    private static final long MAGIC = 0x5457534353434F52L; // "TWSCSCOR"
+    // Bump when the scoring changes, so old caches are not used.
+    private static final int VERSION = 1;
+    // Header size in bytes: magic, version, dataset fingerprint, lexicon fingerprint, count.
+    private static final int HEADER = 8 + 4 + 3 * 8 + 8 + 4;
+    // Returned by lookup for a text that is not in the cache. No score can be this low.
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final FileFingerprint dataset;
+    private final long lexicon;
+    private final int size;
+    private final LongBuffer hashes;
+    private final IntBuffer scores;
+    // Open addressing table from text hash to row, built on the first lookup that misses its own row.
+    private volatile Index index;
+
+    private ScoreCache(FileFingerprint dataset, long lexicon, int size, LongBuffer hashes, IntBuffer scores) {
+        this.dataset = dataset;
+        this.lexicon = lexicon;
+        this.size = size;
+        this.hashes = hashes;
+        this.scores = scores;
+    }
+
+    /**
+     * Map a cache if it was made with the given lexicon.
+     * @param cache Path to the cache.
+     * @param lexicon Fingerprint of the lexicon, see lexiconFingerprint.
+     * @return The cache, or null if there is no valid cache for this lexicon.
+     */
+    static public ScoreCache read(Path cache, long lexicon) throws IOException {
+        if (!Files.isRegularFile(cache)) return null;
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) return null;
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel.position(0)));
+            if (header.readLong() != MAGIC || header.readInt() != VERSION) return null;
+            FileFingerprint dataset = FileFingerprint.read(header);
+            if (header.readLong() != lexicon) return null;
+            int size = header.readInt();
+            if (size < 0 || channel.size() != HEADER + 12L * size) return null;
+
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer hashes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, 8L * size);
+            MappedByteBuffer scores = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + 8L * size, 4L * size);
+            return new ScoreCache(dataset, lexicon, size, hashes.asLongBuffer(), scores.asIntBuffer());
+        }
+    }
+
+    /**
+     * Write a cache. The cache is written to a temporary file first and then moved in place,
+     * so a crashed run never leaves a half written cache behind.
+     * @param cache Path to the cache.
+     * @param dataset Fingerprint of the dataset the rows were read from.
+     * @param lexicon Fingerprint of the lexicon the rows were scored with.
+     * @param hashes Text hash of every row, see hash.
+     * @param scores Score of every row.
+     */
+    static public void write(Path cache, FileFingerprint dataset, long lexicon, long[] hashes, int[] scores) throws IOException {
+        Path temporary = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 20))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            dataset.write(out);
+            out.writeLong(lexicon);
+            out.writeInt(scores.length);
+            for (long hash : hashes)
+                out.writeLong(hash);
+            for (int score : scores)
+                out.writeInt(score);
+        }
+        Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Fingerprint of a lexicon, computed from the contents of its word lists.
+     * @param positiveFile Path to the positive words.
+     * @param negativeFile Path to the negative words.
+     * @return First 8 bytes of the SHA-256 of both files.
+     */
+    static public long lexiconFingerprint(Path positiveFile, Path negativeFile) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(positiveFile));
+            // Separator, so moving a word from the end of one list to the start of the other changes the fingerprint.
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(negativeFile));
+            byte[] sha = digest.digest();
+            long fingerprint = 0;
+            for (int i = 0; i < 8; i++)
+                fingerprint = (fingerprint << 8) | (sha[i] & 0xFF);
+            return fingerprint;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform.", e);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a tweet text, with a final mix so close texts spread over the table.
+     * @param text Text to hash, null hashes like the empty text.
+     * @return Hash of the text.
+     */
+    public static long hash(String text) {
+        long h = 0xCBF29CE484222325L;
+        if (text != null)
+            for (int i = 0; i < text.length(); i++)
+                h = (h ^ text.charAt(i)) * 0x100000001B3L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Cached score of a row. Safe to call from many threads.
+     * @param row Index of the row in the current dataset.
+     * @param hash Text hash of the row.
+     * @return Cached score of the text, or MISSING.
+     */
+    public int lookup(int row, long hash) {
+        if (row < size && hashes.get(row) == hash)
+            return scores.get(row);
+        int cached = index().rowOf(hash);
+        return cached < 0 ? MISSING : scores.get(cached);
+    }
+
+    private Index index() {
+        Index result = index;
+        if (result == null) {
+            synchronized (this) {
+                if (index == null) index = new Index(hashes, size);
+                result = index;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Copy of all cached scores, in row order.
+     */
+    public int[] getScores() {
+        int[] result = new int[size];
+        scores.get(0, result);
+        return result;
+    }
+
+    /**
+     * @return Fingerprint of the dataset the cache was made from.
+     */
+    public FileFingerprint getDataset() {
+        return dataset;
+    }
+
+    public long getLexicon() {
+        return lexicon;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Open addressing table with linear probing from text hash to the first row with that hash.
+     */
+    private static class Index {
+        private final long[] keys;
+        private final int[] rows;
+        private final int mask;
+
+        Index(LongBuffer hashes, int size) {
+            int capacity = Integer.highestOneBit(Math.max(4, size * 2)) << 1;
+            keys = new long[capacity];
+            rows = new int[capacity];
+            Arrays.fill(rows, -1);
+            mask = capacity - 1;
+            for (int row = 0; row < size; row++) {
+                long hash = hashes.get(row);
+                int slot = (int) hash & mask;
+                while (rows[slot] >= 0 && keys[slot] != hash)
+                    slot = (slot + 1) & mask;
+                if (rows[slot] < 0) {
+                    keys[slot] = hash;
+                    rows[slot] = row;
+                }
+            }
+        }
+
+        int rowOf(long hash) {
+            int slot = (int) hash & mask;
+            while (rows[slot] >= 0) {
+                if (keys[slot] == hash) return rows[slot];
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
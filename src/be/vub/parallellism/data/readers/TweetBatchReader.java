@@ -0,0 +1,64 @@
+package be.vub.parallellism.data.readers;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.io.CsvBeanReader;
+import org.supercsv.io.ICsvBeanReader;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a file of tweets in batches of a fixed size, so the whole file never has to be in memory.
+ * Parses exactly like TweetReader.readData, one batch at a time.
+ */
+public class TweetBatchReader implements Closeable {
+    private final ICsvBeanReader beanReader;
+    private final CellProcessor[] processors;
+    private final int batchSize;
+    private long tweets;
+
+    /**
+     * @param file Path to the data
+     * @param batchSize Number of tweets per batch
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists
+     */
+    public TweetBatchReader(String file, int batchSize, HashtagDictionary dictionary) throws IOException {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.batchSize = batchSize;
+        this.processors = TweetReader.processors(dictionary);
+        this.beanReader = new CsvBeanReader(new FileReader(file), CsvPreference.STANDARD_PREFERENCE);
+        beanReader.getHeader(true);
+    }
+
+    /**
+     * @return The next batchSize tweets (fewer for the last batch), or null at the end of the file.
+     */
+    public Tweet[] nextBatch() throws IOException {
+        Tweet[] batch = new Tweet[batchSize];
+        int size = 0;
+        Tweet tweet;
+        while (size < batchSize && (tweet = beanReader.read(Tweet.class, TweetReader.columnToFieldMapping, processors)) != null)
+            batch[size++] = tweet;
+        tweets += size;
+        if (size == 0) return null;
+        return size == batchSize ? batch : Arrays.copyOf(batch, size);
+    }
+
+    /**
+     * @return Number of tweets read so far.
+     */
+    public long getTweetCount() {
+        return tweets;
+    }
+
+    @Override
+    public void close() throws IOException {
+        beanReader.close();
+    }
+}
@@ -0,0 +1,63 @@
+package be.vub.parallellism.data.readers;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.adapters.ParseStringList;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Csv columns that are mapped to a field of Tweet, see TweetReader.columnToFieldMapping.
+ * Used to project a read on the columns a computation needs: the other columns are never decoded.
+ */
+public enum TweetColumn {
+    TWEETID(0, (Tweet tweet, Object value) -> tweet.setTweetid((String) value)),
+    USERID(1, (Tweet tweet, Object value) -> tweet.setUserid((String) value)),
+    USER_DISPLAY_NAME(2, (Tweet tweet, Object value) -> tweet.setUserDisplayName((String) value)),
+    USER_SCREEN_NAME(3, (Tweet tweet, Object value) -> tweet.setUserScreenName((String) value)),
+    ACCOUNT_LANGUAGE(10, (Tweet tweet, Object value) -> tweet.setAccountLanguage((String) value)),
+    TWEET_LANGUAGE(11, (Tweet tweet, Object value) -> tweet.setTweetLanguage((String) value)),
+    TWEET_TEXT(12, (Tweet tweet, Object value) -> tweet.setTweetText((String) value)),
+    TWEET_TIME(13, (Tweet tweet, Object value) -> tweet.setTweetTime((String) value)),
+    @SuppressWarnings("unchecked")
+    HASHTAGS(27, (Tweet tweet, Object value) -> tweet.setHashtags((List<String>) value));
+
+    // Every mapped column.
+    public static final EnumSet<TweetColumn> ALL = EnumSet.allOf(TweetColumn.class);
+    // Columns used by hashtag counting and sentiment scoring.
+    public static final EnumSet<TweetColumn> ANALYSIS = EnumSet.of(TWEET_TEXT, HASHTAGS);
+
+    private final int index;
+    private final BiConsumer<Tweet, Object> setter;
+
+    TweetColumn(int index, BiConsumer<Tweet, Object> setter) {
+        this.index = index;
+        this.setter = setter;
+    }
+
+    /**
+     * @return Index of the column in the csv.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists.
+     * @return The cell processor TweetReader uses for this column.
+     */
+    CellProcessor processor(HashtagDictionary dictionary) {
+        if (this == HASHTAGS && dictionary != null) return new ParseStringList(dictionary);
+        return TweetReader.processors[index];
+    }
+
+    /**
+     * Store a processed value in the field of this column.
+     */
+    void set(Tweet tweet, Object value) {
+        setter.accept(tweet, value);
+    }
+}
@@ -1,25 +1,119 @@
 package be.vub.parallellism.data.readers;
 
 
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.OffHeapTweetStore;
 import be.vub.parallellism.data.models.Tweet;
 import be.vub.parallellism.data.readers.adapters.ParseStringList;
 import org.supercsv.cellprocessor.ConvertNullTo;
 import org.supercsv.cellprocessor.Optional;
 import org.supercsv.cellprocessor.constraint.NotNull;
 import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
 import org.supercsv.io.CsvBeanReader;
+import org.supercsv.io.CsvListReader;
 import org.supercsv.io.ICsvBeanReader;
+import org.supercsv.io.ICsvListReader;
 import org.supercsv.prefs.CsvPreference;
+import org.supercsv.util.CsvContext;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * @author Sam van den Vonder
  */
 public class TweetReader {
+    // Mapping of the csv columns to the fields of Tweet, null columns are skipped.
+    static final String[] columnToFieldMapping = {
+            "tweetid",
+            "userid",
+            "userDisplayName",
+            "userScreenName",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            "accountLanguage",
+            "tweetLanguage",
+            "tweetText",
+            "tweetTime",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            "hashtags",
+            null,
+            null,
+            null};
+
+    // Cell processors for the mapped columns. They hold no state, so they can be shared between parallel readers.
+    static final CellProcessor[] processors = new CellProcessor[]{
+            new NotNull(), // tweetid
+            new NotNull(), // userid
+            new NotNull(), // user_display_name
+            new NotNull(), // user_screen_name
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            new Optional(), // accountLanguage
+            new Optional(), // tweetLanguage
+            new ConvertNullTo("\"\""), // tweetText
+            new NotNull(), //tweet_time
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            new ParseStringList(), // hashtags
+            null,
+            null,
+            null};
+
+    // Index of the hashtags column in processors.
+    private static final int HASHTAGS = 27;
+
+    /**
+     * Cell processors that encode the hashtags in a dictionary while parsing.
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists.
+     * @return Processors to use with columnToFieldMapping.
+     */
+    static CellProcessor[] processors(HashtagDictionary dictionary) {
+        if (dictionary == null) return processors;
+        CellProcessor[] result = processors.clone();
+        result[HASHTAGS] = new ParseStringList(dictionary);
+        return result;
+    }
 
     static public ArrayList<Tweet> readData(String file) throws IOException {
         return readData(file, Double.POSITIVE_INFINITY, any -> true);
@@ -34,6 +128,71 @@ public class TweetReader {
     }
 
 
+    /**
+     * Read all tweets of a file and encode their hashtags to ids while parsing.
+     * @param file Path to the data
+     * @param dictionary Dictionary to encode the hashtags in, see Tweet.getHashtagIds()
+     * @return A list of records representing tweets
+     */
+    static public ArrayList<Tweet> readData(String file, HashtagDictionary dictionary) throws IOException {
+        return readData(file, Double.POSITIVE_INFINITY, any -> true, processors(dictionary));
+    }
+
+    static public ArrayList<Tweet> readDataCached(String file) throws IOException {
+        return readDataCached(file, ForkJoinPool.commonPool(), null);
+    }
+
+    static public ArrayList<Tweet> readDataCached(String file, ForkJoinPool pool) throws IOException {
+        return readDataCached(file, pool, null);
+    }
+
+    /**
+     * Read all tweets of a file through a binary snapshot next to it (file + ".snapshot").
+     * If the snapshot was made from the current contents of the file (same size, modification time and hash),
+     * the tweets are loaded from the snapshot. Otherwise the csv is parsed with ParallelTweetReader
+     * and the snapshot is (re)written for the next run.
+     *
+     * @param file Path to the data
+     * @param pool ForkJoinPool to parse or decode on
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists
+     * @return A list of records representing tweets
+     */
+    static public ArrayList<Tweet> readDataCached(String file, ForkJoinPool pool, HashtagDictionary dictionary) throws IOException {
+        Path source = Paths.get(file);
+        Path snapshot = Paths.get(file + ".snapshot");
+        FileFingerprint fingerprint = FileFingerprint.of(source);
+
+        ArrayList<Tweet> result = TweetSnapshot.read(snapshot, fingerprint, pool, dictionary);
+        if (result == null) {
+            result = ParallelTweetReader.readData(file, pool, dictionary);
+            try {
+                TweetSnapshot.write(snapshot, fingerprint, result);
+            } catch (IOException e) {
+                // A missing snapshot only costs time on the next run.
+                e.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read a file of tweets into off-heap memory. The file is parsed in batches that are copied into the store
+     * and dropped, so the parsed tweets never reach the old generation.
+     *
+     * @param file Path to the data
+     * @param dictionary Dictionary to encode the hashtags in
+     * @return Store with the ids, screen names, texts and hashtags of all tweets
+     */
+    static public OffHeapTweetStore readOffHeap(String file, HashtagDictionary dictionary) throws IOException {
+        OffHeapTweetStore store = new OffHeapTweetStore(dictionary);
+        try (TweetBatchReader reader = new TweetBatchReader(file, 1 << 14, dictionary)) {
+            Tweet[] batch;
+            while ((batch = reader.nextBatch()) != null)
+                store.appendAll(batch);
+        }
+        return store;
+    }
+
     /**
      * Read a file of tweets and return an in-memory list of records
      *
@@ -43,75 +202,14 @@ public class TweetReader {
      * @return A list of records representing tweets
      */
     static public ArrayList<Tweet> readData(String file, double howMany, Function<Tweet, Boolean> shouldInclude) throws IOException {
+        return readData(file, howMany, shouldInclude, processors);
+    }
+
+    private static ArrayList<Tweet> readData(String file, double howMany, Function<Tweet, Boolean> shouldInclude,
+                                             CellProcessor[] processors) throws IOException {
         ArrayList<Tweet> result = new ArrayList<>();
 
         try (ICsvBeanReader beanReader = new CsvBeanReader(new FileReader(file), CsvPreference.STANDARD_PREFERENCE)) {
-            String[] columnToFieldMapping = {
-                    "tweetid",
-                    "userid",
-                    "userDisplayName",
-                    "userScreenName",
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    "accountLanguage",
-                    "tweetLanguage",
-                    "tweetText",
-                    "tweetTime",
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    "hashtags",
-                    null,
-                    null,
-                    null};
-
-            final CellProcessor[] processors = new CellProcessor[]{
-                    new NotNull(), // tweetid
-                    new NotNull(), // userid
-                    new NotNull(), // user_display_name
-                    new NotNull(), // user_screen_name
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    new Optional(), // accountLanguage
-                    new Optional(), // tweetLanguage
-                    new ConvertNullTo("\"\""), // tweetText
-                    new NotNull(), //tweet_time
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    new ParseStringList(), // hashtags
-                    null,
-                    null,
-                    null};
-
             String[] header = beanReader.getHeader(true);
 
             Tweet tweet;
@@ -125,4 +223,60 @@ public class TweetReader {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Read a file of tweets with projection and filter pushdown.
+     * Rows are only split into raw columns first. shouldInclude sees those raw values and rejected rows are dropped
+     * before a Tweet or a hashtag list is built. Kept rows only decode the projected columns, with the same cell
+     * processors as readData; fields of the other columns stay null.
+     *
+     * @param file Path to the data
+     * @param columns Columns to decode, e.g. TweetColumn.ANALYSIS
+     * @param shouldInclude Filter on the raw column values, e.g. record -> "en".equals(record.get("tweet_language"))
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists
+     * @return A list of records representing tweets, with only the projected fields set
+     */
+    static public ArrayList<Tweet> readData(String file, Set<TweetColumn> columns, Predicate<RawRecord> shouldInclude,
+                                            HashtagDictionary dictionary) throws IOException {
+        TweetColumn[] projection = columns.toArray(new TweetColumn[0]);
+        CellProcessor[] projectionProcessors = new CellProcessor[projection.length];
+        for (int i = 0; i < projection.length; i++)
+            projectionProcessors[i] = projection[i].processor(dictionary);
+
+        ArrayList<Tweet> result = new ArrayList<>();
+        try (ICsvListReader listReader = new CsvListReader(new FileReader(file), CsvPreference.STANDARD_PREFERENCE)) {
+            RawRecord record = new RawRecord(listReader.getHeader(true));
+
+            List<String> row;
+            while ((row = listReader.read()) != null) {
+                // Same check as CsvBeanReader does against columnToFieldMapping.
+                if (row.size() != columnToFieldMapping.length)
+                    throw new SuperCsvException("The number of columns to be processed (" + row.size()
+                            + ") must match the number of CellProcessors (" + columnToFieldMapping.length + ")",
+                            new CsvContext(listReader.getLineNumber(), listReader.getRowNumber(), 1));
+                record.reset(row, listReader.getLineNumber());
+                if (!shouldInclude.test(record)) continue;
+
+                Tweet tweet = new Tweet();
+                for (int i = 0; i < projection.length; i++) {
+                    int index = projection[i].getIndex();
+                    CsvContext context = new CsvContext(listReader.getLineNumber(), listReader.getRowNumber(), index + 1);
+                    projection[i].set(tweet, projectionProcessors[i].execute(row.get(index), context));
+                }
+                result.add(tweet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read a file of tweets with projection and filter pushdown, keeping the hashtags as plain lists.
+     * @param file Path to the data
+     * @param columns Columns to decode
+     * @param shouldInclude Filter on the raw column values
+     * @return A list of records representing tweets, with only the projected fields set
+     */
+    static public ArrayList<Tweet> readData(String file, Set<TweetColumn> columns, Predicate<RawRecord> shouldInclude) throws IOException {
+        return readData(file, columns, shouldInclude, null);
+    }
+}
@@ -0,0 +1,220 @@
+package be.vub.parallellism.data.readers;
+
+import be.vub.parallellism.data.models.EncodedHashtagList;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compact binary snapshot of parsed tweets, so repeated runs do not have to parse the csv again.
+ *
+ * Layout:
+ *  header : magic (long), version (int), fingerprint of the source csv (3 longs), number of tweets (int)
+ *  blocks : byte length (int), number of tweets (int), tweets
+ *  tweet  : tweetid, userid, userDisplayName, userScreenName, accountLanguage, tweetLanguage, tweetText, tweetTime,
+ *           number of hashtags (int), hashtags
+ * Strings are stored as UTF-8 byte length (int, -1 for null) followed by the bytes.
+ *
+ * Blocks are memory-mapped and decoded in parallel on a ForkJoinPool, in file order.
+ */
+public class TweetSnapshot {
+    private static final long MAGIC = 0x5457534E41505348L; // "TWSNAPSH"
+    private static final int VERSION = 1;
+    // Header size in bytes: magic, version, fingerprint, count.
+    private static final int HEADER = 8 + 4 + 3 * 8 + 4;
+    // Tweets per block.
+    static int BLOCK_SIZE = 1 << 16;
+
+    /**
+     * Read a snapshot if it was made from the current contents of the source.
+     * @param snapshot Path to the snapshot.
+     * @param source Fingerprint the snapshot must have been made from.
+     * @param pool ForkJoinPool to decode the blocks on.
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists.
+     * @return The tweets, or null if there is no valid snapshot.
+     */
+    static public ArrayList<Tweet> read(Path snapshot, FileFingerprint source, ForkJoinPool pool,
+                                        HashtagDictionary dictionary) throws IOException {
+        if (!Files.isRegularFile(snapshot)) return null;
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) return null;
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel.position(0)));
+            if (header.readLong() != MAGIC || header.readInt() != VERSION) return null;
+            if (!FileFingerprint.read(header).equals(source)) return null;
+            int count = header.readInt();
+            if (count < 0) return null;
+
+            // Walk the block headers to find the blocks, then decode all blocks in parallel.
+            // A truncated or corrupt block header means there is no valid snapshot, like a wrong size in ScoreCache.
+            List<DecodeBlockTask> blocks = new ArrayList<>();
+            ByteBuffer blockHeader = ByteBuffer.allocate(8);
+            long size = channel.size();
+            long position = HEADER;
+            while (position < size) {
+                if (size - position < 8) return null;
+                blockHeader.clear();
+                while (blockHeader.hasRemaining() && channel.read(blockHeader, position + blockHeader.position()) >= 0) ;
+                if (blockHeader.hasRemaining()) return null;
+                blockHeader.flip();
+                int bytes = blockHeader.getInt();
+                int tweets = blockHeader.getInt();
+                if (bytes < 0 || tweets < 0 || position + 8 + bytes > size) return null;
+                blocks.add(new DecodeBlockTask(channel, position + 8, bytes, tweets, dictionary));
+                position += 8 + bytes;
+            }
+
+            try {
+                pool.submit(() -> ForkJoinTask.invokeAll(blocks)).join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            ArrayList<Tweet> result = new ArrayList<>(count);
+            for (DecodeBlockTask block : blocks)
+                result.addAll(block.join());
+            return result.size() == count ? result : null;
+        }
+    }
+
+    /**
+     * Write tweets to a snapshot. The snapshot is written to a temporary file first and then moved in place,
+     * so a crashed run never leaves a half written snapshot behind.
+     * @param snapshot Path to the snapshot.
+     * @param source Fingerprint of the csv the tweets were parsed from.
+     * @param tweets Tweets to write.
+     */
+    static public void write(Path snapshot, FileFingerprint source, List<Tweet> tweets) throws IOException {
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 20))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            source.write(out);
+            out.writeInt(tweets.size());
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream(1 << 20);
+            DataOutputStream blockOut = new DataOutputStream(block);
+            for (int lo = 0; lo < tweets.size(); lo += BLOCK_SIZE) {
+                int hi = Math.min(tweets.size(), lo + BLOCK_SIZE);
+                block.reset();
+                for (int i = lo; i < hi; i++)
+                    writeTweet(blockOut, tweets.get(i));
+                blockOut.flush();
+                out.writeInt(block.size());
+                out.writeInt(hi - lo);
+                block.writeTo(out);
+            }
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeTweet(DataOutputStream out, Tweet tweet) throws IOException {
+        writeString(out, tweet.getTweetid());
+        writeString(out, tweet.getUserid());
+        writeString(out, tweet.getUserDisplayName());
+        writeString(out, tweet.getUserScreenName());
+        writeString(out, tweet.getAccountLanguage());
+        writeString(out, tweet.getTweetLanguage());
+        writeString(out, tweet.getTweetText());
+        writeString(out, tweet.getTweetTime());
+        List<String> hashtags = tweet.getHashtags();
+        out.writeInt(hashtags.size());
+        for (String hashtag : hashtags)
+            writeString(out, hashtag);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Decode one block of a snapshot.
+     */
+    private static class DecodeBlockTask extends RecursiveTask<List<Tweet>> {
+        private FileChannel channel;
+        private long position;
+        private int bytes;
+        private int tweets;
+        private HashtagDictionary dictionary;
+
+        DecodeBlockTask(FileChannel channel, long position, int bytes, int tweets, HashtagDictionary dictionary) {
+            this.channel = channel;
+            this.position = position;
+            this.bytes = bytes;
+            this.tweets = tweets;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        protected List<Tweet> compute() {
+            byte[] data = new byte[bytes];
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+                mapped.get(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            List<Tweet> result = new ArrayList<>(tweets);
+            for (int i = 0; i < tweets; i++) {
+                Tweet tweet = new Tweet();
+                tweet.setTweetid(readString(buffer, data));
+                tweet.setUserid(readString(buffer, data));
+                tweet.setUserDisplayName(readString(buffer, data));
+                tweet.setUserScreenName(readString(buffer, data));
+                tweet.setAccountLanguage(readString(buffer, data));
+                tweet.setTweetLanguage(readString(buffer, data));
+                tweet.setTweetText(readString(buffer, data));
+                tweet.setTweetTime(readString(buffer, data));
+                int count = buffer.getInt();
+                if (dictionary != null) {
+                    int[] ids = new int[count];
+                    for (int j = 0; j < count; j++)
+                        ids[j] = dictionary.idOf(readString(buffer, data));
+                    tweet.setHashtags(new EncodedHashtagList(ids, dictionary));
+                } else {
+                    List<String> hashtags = new ArrayList<>(count);
+                    for (int j = 0; j < count; j++)
+                        hashtags.add(readString(buffer, data));
+                    tweet.setHashtags(hashtags);
+                }
+                result.add(tweet);
+            }
+            return result;
+        }
+
+        private static String readString(ByteBuffer buffer, byte[] data) {
+            int length = buffer.getInt();
+            if (length < 0) return null;
+            String value = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+}
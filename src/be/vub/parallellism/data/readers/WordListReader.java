@@ -1,5 +1,8 @@
 package be.vub.parallellism.data.readers;
 
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.TrieSentimentLexicon;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -22,4 +25,16 @@ public class WordListReader {
         });
         return resultSet;
     }
+
+    /**
+     * Read a positive and a negative word list and compile them into one immutable lexicon.
+     * Looking up a word in the lexicon is a single pass over its chars that returns +1, -1 or 0,
+     * instead of a probe in the positive and then in the negative HashSet.
+     * @param positiveFile Path to the positive words.
+     * @param negativeFile Path to the negative words.
+     * @return Compiled lexicon, safe to share between threads.
+     */
+    static public SentimentLexicon compile(String positiveFile, String negativeFile) throws IOException {
+        return new TrieSentimentLexicon(read(positiveFile), read(negativeFile));
+    }
 }
@@ -1,5 +1,7 @@
 package be.vub.parallellism.data.readers.adapters;
 
+import be.vub.parallellism.data.models.EncodedHashtagList;
+import be.vub.parallellism.data.models.HashtagDictionary;
 import org.supercsv.cellprocessor.CellProcessorAdaptor;
 import org.supercsv.util.CsvContext;
 
@@ -9,11 +11,26 @@ import java.util.List;
 
 public class ParseStringList extends CellProcessorAdaptor {
 
+    // If not null, hashtags are encoded to ids in this dictionary.
+    private final HashtagDictionary dictionary;
+
     public ParseStringList() {
+        this(null);
+    }
+
+    /**
+     * Processor that encodes the hashtags while parsing. The result is an EncodedHashtagList.
+     * @param dictionary Dictionary to encode the hashtags in, shared by all readers of a dataset.
+     */
+    public ParseStringList(HashtagDictionary dictionary) {
         super();
+        this.dictionary = dictionary;
     }
 
     public Object execute(Object value, CsvContext context) {
+        if (dictionary != null)
+            return encode(value);
+
         List<String> result = new ArrayList<>();
 
         if (value != null) {
@@ -24,4 +41,17 @@ public class ParseStringList extends CellProcessorAdaptor {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    private Object encode(Object value) {
+        if (value == null)
+            return new EncodedHashtagList(new int[0], dictionary);
+
+        String inputValue = (String) value;
+        String csv = inputValue.substring(1, inputValue.length() -1);
+        String[] hashtags = csv.split(", ");
+        int[] ids = new int[hashtags.length];
+        for (int i = 0; i < hashtags.length; i++)
+            ids[i] = dictionary.idOf(hashtags[i]);
+        return new EncodedHashtagList(ids, dictionary);
+    }
+}
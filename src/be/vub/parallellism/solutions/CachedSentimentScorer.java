@@ -0,0 +1,122 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.FileFingerprint;
+import be.vub.parallellism.data.readers.ScoreCache;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsCachedTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scores the tweets of a dataset through a persistent ScoreCache next to it (file + ".scores").
+ *
+ * If the cache was made from the current dataset with the current word lists, the cached scores are returned
+ * without looking at a single tweet. If only the dataset changed, only tweets with a text that is not in the cache
+ * are scored. If the word lists changed, every tweet is scored. The cache is rewritten whenever it was not up to date.
+ *
+ * Arguments (all optional): csv file, "verify" to compare with scoring every tweet.
+ */
+public class CachedSentimentScorer {
+    public static String positive_words = "./files/positive-words.txt";
+    public static String negative_words = "./files/negative-words.txt";
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        boolean verify = args.length > 1 && args[1].equals("verify");
+
+        try {
+            SentimentLexicon lexicon = WordListReader.compile(positive_words, negative_words);
+            Tweet[] tweets = TweetReader.readDataCached(file).toArray(new Tweet[0]);
+            TaskConfig config = new TaskConfig(3500);
+
+            long before = System.currentTimeMillis();
+            Result result = score(file, tweets, lexicon, ForkJoinPool.commonPool(), config);
+            long after = System.currentTimeMillis();
+            System.out.println("# Tweets in dataset: " + tweets.length);
+            System.out.println("Elapsed time in milliseconds to score through the cache: " + (after - before));
+            System.out.println("Cache up to date: " + result.isUpToDate() + ", tweets scored: " + result.getScored());
+
+            if (verify) {
+                ScoreSentimentsTask task = new ScoreSentimentsTask(tweets, lexicon, config);
+                ForkJoinPool.commonPool().invoke(task);
+                System.out.println("Same scores as without cache: "
+                        + Arrays.equals(task.getResult().getScores(), result.getScores().getScores()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Score the tweets of a dataset through its cache, and bring the cache up to date.
+     * @param file Path to the dataset the tweets were read from, in file order.
+     * @param tweets Tweets of the dataset.
+     * @param lexicon Lexicon compiled from positive_words and negative_words.
+     * @param pool ForkJoinPool to score on.
+     * @param config Configuration of the scoring task.
+     * @return Scores of the tweets and how many had to be scored.
+     */
+    public static Result score(String file, Tweet[] tweets, SentimentLexicon lexicon, ForkJoinPool pool,
+                               TaskConfig config) throws IOException {
+        Path cachePath = Paths.get(file + ".scores");
+        FileFingerprint dataset = FileFingerprint.of(Paths.get(file));
+        long lexiconFingerprint = ScoreCache.lexiconFingerprint(Paths.get(positive_words), Paths.get(negative_words));
+
+        ScoreCache cache = ScoreCache.read(cachePath, lexiconFingerprint);
+        if (cache != null && cache.getDataset().equals(dataset) && cache.size() == tweets.length)
+            return new Result(new SentimentScores(tweets, cache.getScores()), 0, true);
+
+        ScoreSentimentsCachedTask task = new ScoreSentimentsCachedTask(tweets, cache, lexicon, config);
+        int scored = pool.invoke(task);
+        try {
+            ScoreCache.write(cachePath, dataset, lexiconFingerprint, task.getHashes(), task.getResult().getScores());
+        } catch (IOException e) {
+            // A missing cache only costs time on the next run.
+            e.printStackTrace();
+        }
+        return new Result(task.getResult(), scored, false);
+    }
+
+    /**
+     * Scores of a dataset and how they were obtained.
+     */
+    public static class Result {
+        private final SentimentScores scores;
+        private final int scored;
+        private final boolean upToDate;
+
+        Result(SentimentScores scores, int scored, boolean upToDate) {
+            this.scores = scores;
+            this.scored = scored;
+            this.upToDate = upToDate;
+        }
+
+        public SentimentScores getScores() {
+            return scores;
+        }
+
+        /**
+         * @return Number of tweets that were not in the cache and had to be scored.
+         */
+        public int getScored() {
+            return scored;
+        }
+
+        /**
+         * @return True if the cache was made from the current dataset and word lists, and no tweet was looked at.
+         */
+        public boolean isUpToDate() {
+            return upToDate;
+        }
+    }
+}
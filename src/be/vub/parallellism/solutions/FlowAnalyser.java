@@ -0,0 +1,227 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.pipeline.Batch;
+import be.vub.parallellism.solutions.pipeline.BatchPublisher;
+import be.vub.parallellism.solutions.pipeline.StageMetrics;
+import be.vub.parallellism.solutions.pipeline.TransformStage;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Counts hashtags and the sentiment score distribution of a file with a multi-stage pipeline on java.util.concurrent.Flow.
+ *
+ *      parse -> filter -> score -> count -> sink
+ *
+ * Every stage runs on its own threads, so parsing, filtering, scoring and counting of different batches overlap.
+ * Stages are connected by bounded buffers of buffer_capacity batches with demand based backpressure: a slow stage
+ * stops requesting, its upstream buffer fills up and in the end the parser blocks. The number of live batches is
+ * bounded by the buffers and the parallelism, not by the size of the file.
+ * Every stage keeps its throughput and queue depth, they are reported every report_interval ms and at the end:
+ * the stage that is busy close to 100% of the time is the bottleneck and should get more threads.
+ *
+ * Without a filter the totals equal those of StreamingAnalyser.
+ *
+ * Arguments (all optional): csv file, batch size, threads of the filter, score and count stages as "f,s,c",
+ * tweet language to keep ("all" for every tweet), "verify" to compare with StreamingAnalyser.
+ */
+public class FlowAnalyser {
+    // Number of tweets per batch.
+    public static int batch_size = 10_000;
+    // Batches that can wait between two stages.
+    public static int buffer_capacity = 4;
+    // Worker threads of the filter, score and count stages. Parsing is sequential.
+    public static int filter_parallelism = 1;
+    public static int score_parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    public static int count_parallelism = 1;
+    // Milliseconds between two progress reports, 0 to only report at the end.
+    public static long report_interval = 1000;
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        if (args.length > 1) batch_size = Integer.parseInt(args[1]);
+        if (args.length > 2) {
+            String[] threads = args[2].split(",");
+            filter_parallelism = Integer.parseInt(threads[0]);
+            score_parallelism = Integer.parseInt(threads[1]);
+            count_parallelism = Integer.parseInt(threads[2]);
+        }
+        String language = args.length > 3 && !args[3].equals("all") ? args[3] : null;
+        boolean verify = args.length > 4 && args[4].equals("verify");
+
+        try {
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            HashtagDictionary dictionary = new HashtagDictionary();
+            Predicate<Tweet> filter = language == null ? null : (Tweet tweet) -> language.equals(tweet.getTweetLanguage());
+
+            List<StageMetrics> metrics = new ArrayList<>();
+            long before = System.nanoTime();
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+                Thread thread = new Thread(r, "pipeline-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (report_interval > 0)
+                reporter.scheduleAtFixedRate(() -> report(metrics, System.nanoTime() - before),
+                        report_interval, report_interval, TimeUnit.MILLISECONDS);
+
+            StreamingAnalyser.Result result;
+            try {
+                result = analyse(file, batch_size, filter, lexicon, dictionary, metrics);
+            } finally {
+                reporter.shutdownNow();
+            }
+            long elapsed = System.nanoTime() - before;
+
+            report(metrics, elapsed);
+            System.out.println("# Tweets after filter: " + result.getTweetCount() + " in " + result.getBatchCount() + " batches");
+            System.out.println("Elapsed time in milliseconds to parse, filter, score and count: " + elapsed / 1_000_000);
+            System.out.println("Distinct hashtags: " + result.getHashtagMap(dictionary).size());
+            System.out.println("Score distribution: " + result.getScores());
+
+            if (verify) {
+                HashtagDictionary streamedDictionary = new HashtagDictionary();
+                StreamingAnalyser.Result streamed = StreamingAnalyser.analyse(file, batch_size,
+                        ForkJoinPool.commonPool(), lexicon, streamedDictionary, new TaskConfig(3500));
+                System.out.println("Same hashtag counts as streaming: "
+                        + streamed.getHashtagMap(streamedDictionary).equals(result.getHashtagMap(dictionary)));
+                System.out.println("Same score distribution as streaming: " + streamed.getScores().equals(result.getScores()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Run a file through the pipeline parse -> filter -> score -> count.
+     * @param file Path to the data.
+     * @param batchSize Number of tweets per batch.
+     * @param filter Tweets to keep, or null to keep every tweet.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param dictionary Dictionary to encode the hashtags in, the counts are indexed by its ids.
+     * @param metrics List the metrics of every stage are added to, in pipeline order, as soon as the stages exist.
+     * @return Hashtag counts and score distribution of the tweets that passed the filter.
+     */
+    public static StreamingAnalyser.Result analyse(String file, int batchSize, Predicate<Tweet> filter,
+                                                   SentimentLexicon lexicon, HashtagDictionary dictionary,
+                                                   List<StageMetrics> metrics) throws IOException {
+        ExecutorService parseDelivery = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread thread = new Thread(r, "pipeline-parse-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BatchPublisher parse = new BatchPublisher(file, batchSize, dictionary, parseDelivery, buffer_capacity);
+        TransformStage filterStage = new TransformStage("filter", filter_parallelism, buffer_capacity, (Batch batch) -> {
+            if (filter == null) return batch;
+            Tweet[] kept = Arrays.stream(batch.getTweets()).filter(filter).toArray(Tweet[]::new);
+            if (kept.length == 0) return null;
+            batch.setTweets(kept);
+            return batch;
+        });
+        TransformStage scoreStage = new TransformStage("score", score_parallelism, buffer_capacity, (Batch batch) -> {
+            // Stage threads are not ForkJoin workers: with the sequential config invoke scores the batch on this thread.
+            ScoreSentimentsTask task = new ScoreSentimentsTask(batch.getTweets(), lexicon, TaskConfig.SEQUENTIAL);
+            task.invoke();
+            batch.setScores(task.getResult().getScores());
+            return batch;
+        });
+        TransformStage countStage = new TransformStage("count", count_parallelism, buffer_capacity, (Batch batch) -> {
+            // Every id in the batch was assigned before the batch was published, so the current size covers them.
+            batch.setHashtagCounts(new CountHashtagIdsTask(batch.getTweets(), dictionary.size(), TaskConfig.SEQUENTIAL).invoke());
+            batch.releaseTweets();
+            return batch;
+        });
+        Sink sink = new Sink(buffer_capacity);
+
+        metrics.add(parse.getMetrics());
+        metrics.add(filterStage.getMetrics());
+        metrics.add(scoreStage.getMetrics());
+        metrics.add(countStage.getMetrics());
+
+        // Subscribe from the end, so no stage publishes before its subscriber is in place.
+        countStage.subscribe(sink);
+        scoreStage.subscribe(countStage);
+        filterStage.subscribe(scoreStage);
+        parse.subscribe(filterStage);
+        Thread parser = new Thread(parse, "pipeline-parse");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            return sink.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parse.close();
+            throw new IOException("Interrupted while analysing " + file, e);
+        } catch (ExecutionException e) {
+            parse.close();
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Pipeline failed on " + file, e.getCause());
+        } finally {
+            // The sink only completes after the filter stage got onComplete, so no batch is left to deliver.
+            parseDelivery.shutdown();
+        }
+    }
+
+    private static void report(List<StageMetrics> metrics, long elapsed) {
+        StringBuilder report = new StringBuilder(String.format("after %d ms%n", elapsed / 1_000_000));
+        for (StageMetrics stage : metrics)
+            report.append("  ").append(stage.report(elapsed)).append(System.lineSeparator());
+        System.out.print(report);
+    }
+
+    /**
+     * Last stage: adds every batch to the running totals. Flow delivers to one subscriber sequentially,
+     * so the totals need no synchronization. Requests one batch for every batch it adds.
+     */
+    private static class Sink implements Flow.Subscriber<Batch> {
+        private final CompletableFuture<StreamingAnalyser.Result> result = new CompletableFuture<>();
+        private final StreamingAnalyser.Result totals = new StreamingAnalyser.Result();
+        private final int capacity;
+        private Flow.Subscription subscription;
+
+        Sink(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(capacity);
+        }
+
+        @Override
+        public void onNext(Batch batch) {
+            totals.add(batch.getHashtagCounts(), batch.getScores());
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(totals);
+        }
+    }
+}
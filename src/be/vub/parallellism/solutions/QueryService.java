@@ -0,0 +1,366 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.query.LatencyRecorder;
+import be.vub.parallellism.solutions.query.QueryIndex;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.SortSentimentScoresTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running query service over a dataset that is loaded, counted and scored once.
+ *
+ * At start-up the tweets are loaded through their snapshot (TweetReader.readDataCached), scored through their
+ * score cache (CachedSentimentScorer), counted with CountHashtagIdsTask and sorted with SortSentimentScoresTask.
+ * The results are indexed in a QueryIndex, so a query never scans the dataset. Queries are served over HTTP on
+ * the loopback interface by query_threads threads. Answers are plain text, one result per line, tab separated:
+ *
+ *      /top?k=10                                   most used hashtags: hashtag, count
+ *      /tweets?k=10&order=negative                 most negative (or positive) tweets: score, tweet id, text
+ *      /hashtag?tag=covid&k=10&order=negative      count, then the most negative (or positive) tweets of a hashtag
+ *      /tweet?id=123                               score, tweet id, text of one tweet
+ *      /stats                                      requests, p50, p99 and max latency per query
+ *
+ * An unknown hashtag has count 0 and no tweets, an unknown tweet id an empty answer. Bad parameters give status 400.
+ *
+ * Latency is measured from the start of the handler until the answer is written, and reported every
+ * report_interval ms and by /stats.
+ *
+ * Arguments (all optional): csv file, port (0 for any free port),
+ * "bench" followed by clients and requests per client to run a concurrent load against the service and stop.
+ */
+public class QueryService {
+    // Threads that answer queries.
+    public static int query_threads = Runtime.getRuntime().availableProcessors();
+    // Number of results when a query does not give k, and the largest k that is accepted.
+    public static int default_k = 10;
+    public static int max_k = 10_000;
+    // Milliseconds between two latency reports, 0 to only report on /stats.
+    public static long report_interval = 10_000;
+
+    private final QueryIndex index;
+    private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+    private final LatencyRecorder allLatencies = new LatencyRecorder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public QueryService(QueryIndex index) {
+        this.index = index;
+    }
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        boolean bench = args.length > 2 && args[2].equals("bench");
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int requests = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+        try {
+            long before = System.currentTimeMillis();
+            QueryService service = new QueryService(load(file, ForkJoinPool.commonPool(), new TaskConfig(3500)));
+            long loaded = System.currentTimeMillis();
+            service.start(port);
+            System.out.println("Loaded and indexed " + service.index.size() + " tweets and "
+                    + service.index.getHashtagCount() + " hashtags in " + (loaded - before) + " ms");
+            System.out.println("Listening on http://localhost:" + service.getPort() + "/");
+
+            if (bench) {
+                service.bench(clients, requests);
+                service.stop();
+            } else if (report_interval > 0) {
+                ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+                    Thread thread = new Thread(r, "query-report");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                reporter.scheduleAtFixedRate(service::report, report_interval, report_interval, TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Load, score, count and index a dataset.
+     * @param file Path to the data.
+     * @param pool ForkJoinPool to run the tasks on.
+     * @param config Configuration of the tasks.
+     * @return Index over the dataset.
+     */
+    public static QueryIndex load(String file, ForkJoinPool pool, TaskConfig config) throws IOException {
+        SentimentLexicon lexicon = WordListReader.compile(CachedSentimentScorer.positive_words, CachedSentimentScorer.negative_words);
+        HashtagDictionary dictionary = new HashtagDictionary();
+        Tweet[] tweets = TweetReader.readDataCached(file, pool, dictionary).toArray(new Tweet[0]);
+
+        SentimentScores scores = CachedSentimentScorer.score(file, tweets, lexicon, pool, config).getScores();
+        pool.invoke(new SortSentimentScoresTask(scores, config));
+        int[] counts = pool.invoke(new CountHashtagIdsTask(tweets, dictionary.size(), config));
+        return new QueryIndex(dictionary, counts, scores);
+    }
+
+    /**
+     * Start serving on the loopback interface.
+     * @param port Port to listen on, 0 for any free port.
+     */
+    public void start(int port) throws IOException {
+        // Headers and body are written separately: without TCP_NODELAY every answer waits for a delayed ACK (~40 ms).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        serve("/top", this::top);
+        serve("/tweets", this::tweets);
+        serve("/hashtag", this::hashtag);
+        serve("/tweet", this::tweet);
+        server.createContext("/stats", (HttpExchange exchange) -> respond(exchange, 200, stats()));
+        executor = Executors.newFixedThreadPool(query_threads);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answer of a query, from the decoded parameters of the request.
+     * Throws an IllegalArgumentException for a bad request.
+     */
+    private interface Query {
+        String answer(Map<String, String> parameters);
+    }
+
+    private void serve(String path, Query query) {
+        LatencyRecorder latency = new LatencyRecorder();
+        latencies.put(path, latency);
+        server.createContext(path, (HttpExchange exchange) -> {
+            long start = System.nanoTime();
+            try {
+                // Answer before responding, so a failing query still gets a status line.
+                int status = 200;
+                String body;
+                try {
+                    body = query.answer(parameters(exchange.getRequestURI()));
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    body = e.getMessage() + "\n";
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    status = 500;
+                    body = "Internal error: " + e + "\n";
+                }
+                respond(exchange, status, body);
+            } finally {
+                // Also failed requests count, including those whose client went away.
+                long elapsed = System.nanoTime() - start;
+                latency.record(elapsed);
+                allLatencies.record(elapsed);
+            }
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parameters(URI uri) {
+        Map<String, String> result = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) return result;
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0) continue;
+            result.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static int k(Map<String, String> parameters) {
+        String value = parameters.get("k");
+        int k = value == null ? default_k : Integer.parseInt(value);
+        if (k < 0 || k > max_k)
+            throw new IllegalArgumentException("k must be between 0 and " + max_k);
+        return k;
+    }
+
+    private static boolean negative(Map<String, String> parameters) {
+        String order = parameters.getOrDefault("order", "negative");
+        if (!order.equals("negative") && !order.equals("positive"))
+            throw new IllegalArgumentException("order must be negative or positive");
+        return order.equals("negative");
+    }
+
+    private String top(Map<String, String> parameters) {
+        StringBuilder answer = new StringBuilder();
+        for (Pair<String, Integer> hashtag : index.topHashtags(k(parameters)))
+            answer.append(escape(hashtag.getKey())).append('\t').append(hashtag.getValue()).append('\n');
+        return answer.toString();
+    }
+
+    private String tweets(Map<String, String> parameters) {
+        return appendTweets(new StringBuilder(), index.tweetsByScore(null, k(parameters), negative(parameters))).toString();
+    }
+
+    private String hashtag(Map<String, String> parameters) {
+        String tag = parameters.get("tag");
+        if (tag == null)
+            throw new IllegalArgumentException("tag is missing");
+        StringBuilder answer = new StringBuilder().append(index.getCount(tag)).append('\n');
+        return appendTweets(answer, index.tweetsByScore(tag, k(parameters), negative(parameters))).toString();
+    }
+
+    private String tweet(Map<String, String> parameters) {
+        String id = parameters.get("id");
+        if (id == null)
+            throw new IllegalArgumentException("id is missing");
+        int row = index.rowOf(id);
+        return row < 0 ? "" : appendTweets(new StringBuilder(), new int[]{row}).toString();
+    }
+
+    private StringBuilder appendTweets(StringBuilder answer, int[] rows) {
+        for (int row : rows) {
+            Tweet tweet = index.getTweet(row);
+            answer.append(index.getScore(row)).append('\t')
+                    .append(escape(tweet.getTweetid())).append('\t')
+                    .append(escape(tweet.getTweetText())).append('\n');
+        }
+        return answer;
+    }
+
+    /**
+     * Escape the characters that separate fields and lines in an answer.
+     */
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private String stats() {
+        StringBuilder answer = new StringBuilder();
+        latencies.forEach((String path, LatencyRecorder latency) ->
+                answer.append(path).append('\t').append(latency).append('\n'));
+        answer.append("all\t").append(allLatencies).append('\n');
+        return answer.toString();
+    }
+
+    public void report() {
+        System.out.print(stats());
+    }
+
+    /**
+     * Run a mix of queries from several client threads at once and report the latency seen by the clients
+     * next to the latency measured by the service.
+     * @param clients Number of concurrent clients.
+     * @param requests Requests per client.
+     */
+    public void bench(int clients, int requests) throws IOException {
+        List<String> hashtags = new ArrayList<>();
+        for (Pair<String, Integer> hashtag : index.topHashtags(100))
+            hashtags.add(hashtag.getKey());
+        String base = "http://localhost:" + getPort();
+
+        LatencyRecorder clientLatency = new LatencyRecorder();
+        ExecutorService load = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>(clients);
+        long before = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            futures.add(load.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < requests; i++) {
+                    String path;
+                    switch (i % 4) {
+                        case 0:
+                            path = "/top?k=10";
+                            break;
+                        case 1:
+                            path = hashtags.isEmpty() ? "/tweets?k=10" : "/hashtag?k=10&tag="
+                                    + URLEncoder.encode(hashtags.get(random.nextInt(hashtags.size())), StandardCharsets.UTF_8);
+                            break;
+                        case 2:
+                            path = "/tweets?k=10&order=" + (random.nextBoolean() ? "negative" : "positive");
+                            break;
+                        default:
+                            path = index.size() == 0 ? "/tweet?id=0" : "/tweet?id="
+                                    + URLEncoder.encode(String.valueOf(index.getTweet(random.nextInt(index.size())).getTweetid()), StandardCharsets.UTF_8);
+                    }
+                    long start = System.nanoTime();
+                    get(base + path);
+                    clientLatency.record(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Client failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the clients", e);
+        } finally {
+            load.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - before;
+
+        System.out.println(clients + " clients x " + requests + " requests in " + elapsed / 1_000_000 + " ms ("
+                + (long) (clients * (double) requests / (elapsed / 1e9)) + " requests/s)");
+        System.out.println("client\t" + clientLatency);
+        report();
+    }
+
+    /**
+     * Get a page and read it completely, so the connection can be reused.
+     */
+    private static void get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (connection.getResponseCode() != 200)
+            throw new IOException("GET " + url + " returned " + connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            in.readAllBytes();
+        }
+    }
+}
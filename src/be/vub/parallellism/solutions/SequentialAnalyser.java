@@ -1,7 +1,10 @@
 package be.vub.parallellism.solutions;
 
 
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
 import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.SpaceSavingSummary;
 import be.vub.parallellism.data.models.Tweet;
 import be.vub.parallellism.data.readers.TweetReader;
 import be.vub.parallellism.data.readers.WordListReader;
@@ -22,9 +25,11 @@ public class SequentialAnalyser {
     /*  Code to read only English tweets from the original dataset published by Twitter
         https://about.twitter.com/en_us/values/elections-integrity.html#data
 
-        List<Tweet> tweets = TweetReader.readData("./files/ira_tweets_csv_hashed.csv", (Tweet tweet) -> {
-            String accountLang = tweet.getAccountLanguage();
-            String tweetLang = tweet.getTweetLanguage();
+        The filter only looks at the raw language columns, so other tweets are dropped before they are decoded.
+
+        List<Tweet> tweets = TweetReader.readData("./files/ira_tweets_csv_hashed.csv", TweetColumn.ALL, (RawRecord record) -> {
+            String accountLang = record.get("account_language");
+            String tweetLang = record.get("tweet_language");
             boolean tweetIsEnglish = tweetLang != null && (tweetLang.equals("en") || tweetLang.equals("en-gb"));
             boolean accountIsEnglish = accountLang != null && (accountLang.equals("en") || accountLang.equals("en-gb"));
             return tweetIsEnglish || (tweetLang == null && accountIsEnglish);
@@ -37,28 +42,26 @@ public class SequentialAnalyser {
     public static void main(String[] args) {
         try {
 //            List<Tweet> tweets = TweetReader.readData("./files/ira_tweets_csv_hashed_english.csv");
-            List<Tweet> tweets = TweetReader.readData("./files/tweets_3500000.csv");
+//            List<Tweet> tweets = TweetReader.readData("./files/tweets_3500000.csv");
+            HashtagDictionary dictionary = new HashtagDictionary();
+            List<Tweet> tweets = TweetReader.readDataCached("./files/tweets_3500000.csv", ForkJoinPool.commonPool(), dictionary);
             HashSet<String> positiveWords = WordListReader.read("./files/positive-words.txt");
             HashSet<String> negativeWords = WordListReader.read("./files/negative-words.txt");
             Tweet[] tweets1 = tweets.toArray(new Tweet[0]);
             System.out.println("# Tweets in dataset: " + tweets.size());
 
             long before = System.currentTimeMillis();
-            HashMap<String, Integer> hashtagCount = new HashMap<>();
-            for (Tweet tweet : tweets) {
-                List<String> hashtags = tweet.getHashtags();
-
-                hashtags.forEach((String hashtag) -> {
-                    if (hashtagCount.containsKey(hashtag)) {
-                        int currentCount = hashtagCount.get(hashtag);
-                        hashtagCount.put(hashtag, currentCount + 1);
-                    } else
-                        hashtagCount.put(hashtag, 1);
-                });
-            }
+            HashMap<String, Integer> hashtagCount = countHashtags(tweets);
             long after = System.currentTimeMillis();
             System.out.println("Elapsed time in milliseconds to count all hashtags: " + (after - before));
 
+            // Same count over the dictionary ids in a primitive histogram, translated back to hashtags at the end.
+            before = System.currentTimeMillis();
+            HashMap<String, Integer> hashtagCountFromIds = countHashtagIds(tweets, dictionary);
+            after = System.currentTimeMillis();
+            System.out.println("Elapsed time in milliseconds to count all hashtags by id: " + (after - before));
+            System.out.println("Both hashtag counts are equal: " + hashtagCount.equals(hashtagCountFromIds));
+
 
             //Just for demonstration purposes, sort all hashtags in ascending order.
             Map<String, Integer> sortedMap = hashtagCount.entrySet().stream()
@@ -66,25 +69,106 @@ public class SequentialAnalyser {
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
             // System.out.println(sortedMap.toString());
 
+            // Approximate top 10 with a fixed size Space-Saving summary instead of sorting the whole map.
+            before = System.currentTimeMillis();
+            SpaceSavingSummary summary = new SpaceSavingSummary(1000);
+            for (Tweet tweet : tweets)
+                tweet.getHashtags().forEach(summary::add);
+            List<SpaceSavingSummary.Entry> top = summary.getTop(10);
+            after = System.currentTimeMillis();
+            System.out.println("Elapsed time in milliseconds to find the top 10 hashtags: " + (after - before));
+            System.out.println("Top 10 hashtags (count +- error): " + top);
+            System.out.println("Hashtags not in the summary occur at most " + summary.getMaxError() + " times");
+
 
             // calculate sentiment score for all tweets & sort them in ascending order
             before = System.currentTimeMillis();
 
-            ArrayList<Pair<Tweet, Integer>> scores = new ArrayList<>(tweets.size());
-            tweets.forEach((Tweet tweet) -> {
-                try {
-                    scores.add(new Pair<>(tweet, tweet.calculateSentimentScore(positiveWords, negativeWords)));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
-            scores.sort(Comparator.comparing(Pair::getValue));
+            ArrayList<Pair<Tweet, Integer>> scores = scoreAndSort(tweets, positiveWords, negativeWords);
             after = System.currentTimeMillis();
             System.out.println("Elapsed time in milliseconds to score and sort all tweets: " + (after - before));
 
+            // Same scoring without allocations: walk the text in place and look up char ranges in a lexicon.
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            before = System.currentTimeMillis();
+            ArrayList<Pair<Tweet, Integer>> inPlaceScores = scoreAndSort(tweets, lexicon);
+            after = System.currentTimeMillis();
+            System.out.println("Elapsed time in milliseconds to score (in place) and sort all tweets: " + (after - before));
+
+            // Both modes must give the same score for every tweet. The sort is stable, so the order is the same too.
+            int mismatches = 0;
+            for (int i = 0; i < scores.size(); i++)
+                if (scores.get(i).getKey() != inPlaceScores.get(i).getKey()
+                        || !scores.get(i).getValue().equals(inPlaceScores.get(i).getValue()))
+                    mismatches++;
+            System.out.println("Tweets scored differently by the two modes: " + mismatches);
+
 
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Sequential baseline: count hashtags in a HashMap.
+     * @param tweets Tweets to count the hashtags of.
+     * @return HashMap from hashtag to count.
+     */
+    public static HashMap<String, Integer> countHashtags(List<Tweet> tweets) {
+        HashMap<String, Integer> hashtagCount = new HashMap<>();
+        for (Tweet tweet : tweets) {
+            List<String> hashtags = tweet.getHashtags();
+
+            hashtags.forEach((String hashtag) -> {
+                if (hashtagCount.containsKey(hashtag)) {
+                    int currentCount = hashtagCount.get(hashtag);
+                    hashtagCount.put(hashtag, currentCount + 1);
+                } else
+                    hashtagCount.put(hashtag, 1);
+            });
+        }
+        return hashtagCount;
+    }
+
+    /**
+     * Sequential baseline: count dictionary encoded hashtags in a primitive histogram.
+     * @param tweets Tweets read with the dictionary.
+     * @param dictionary Dictionary the hashtags are encoded in.
+     * @return HashMap from hashtag to count.
+     */
+    public static HashMap<String, Integer> countHashtagIds(List<Tweet> tweets, HashtagDictionary dictionary) {
+        int[] hashtagIdCount = new int[dictionary.size()];
+        for (Tweet tweet : tweets)
+            for (int id : tweet.getHashtagIds())
+                hashtagIdCount[id]++;
+        return dictionary.toMap(hashtagIdCount);
+    }
+
+    /**
+     * Sequential baseline: score every tweet with the word sets and sort the scores in ascending order.
+     * @return Sorted scores.
+     */
+    public static ArrayList<Pair<Tweet, Integer>> scoreAndSort(List<Tweet> tweets, HashSet<String> positiveWords, HashSet<String> negativeWords) {
+        ArrayList<Pair<Tweet, Integer>> scores = new ArrayList<>(tweets.size());
+        tweets.forEach((Tweet tweet) -> {
+            try {
+                scores.add(new Pair<>(tweet, tweet.calculateSentimentScore(positiveWords, negativeWords)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        scores.sort(Comparator.comparing(Pair::getValue));
+        return scores;
+    }
+
+    /**
+     * Sequential baseline: score every tweet in place with a lexicon and sort the scores in ascending order.
+     * @return Sorted scores.
+     */
+    public static ArrayList<Pair<Tweet, Integer>> scoreAndSort(List<Tweet> tweets, SentimentLexicon lexicon) {
+        ArrayList<Pair<Tweet, Integer>> scores = new ArrayList<>(tweets.size());
+        tweets.forEach((Tweet tweet) -> scores.add(new Pair<>(tweet, tweet.calculateSentimentScore(lexicon))));
+        scores.sort(Comparator.comparing(Pair::getValue));
+        return scores;
+    }
 }
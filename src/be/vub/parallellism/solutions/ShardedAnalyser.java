@@ -0,0 +1,264 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.ParallelTweetReader;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.sharding.ShardMerger;
+import be.vub.parallellism.solutions.sharding.ShardResult;
+import be.vub.parallellism.solutions.sharding.ShardWorker;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.SortSentimentScoresTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Coordinator of a sharded analysis over several JVMs on this machine.
+ *
+ * The csv file is split in shards of roughly the same number of bytes, realigned to record boundaries like
+ * ParallelTweetReader does. Every shard is analysed by a ShardWorker process, launched with the classpath of this JVM,
+ * that counts the hashtags and scores and sorts the tweets of its shard. The partial results come back over the stdout
+ * pipe of every worker and are merged by ShardMerger: hashtag histograms are added, sorted score runs are merged k-way.
+ * The merged totals and score order are the same as those of one JVM over the whole file.
+ *
+ * Reported per run: time to split, time per worker (including JVM start-up) with its own read, count and score time,
+ * time to merge the histograms and the score runs, and the total with the speed-up over the first run.
+ * Workers only share the disk and the cores, so scale-out on one machine is bounded by the cores;
+ * the merge cost is what stays when the workers move to other nodes.
+ *
+ * Arguments (all optional): csv file, numbers of shards to run as "1,2,4", "verify" to compare with one JVM.
+ */
+public class ShardedAnalyser {
+    public static String positive_words = "./files/positive-words.txt";
+    public static String negative_words = "./files/negative-words.txt";
+    // Threads of the ForkJoinPool of every worker, 0 to divide the cores of this machine over the workers.
+    public static int worker_threads = 0;
+    // Maximum heap of every worker (e.g. "2g"), null for the default of the JVM.
+    public static String worker_heap = null;
+    // Score with the ASCII fast path, in the workers and in analyseInProcess.
+    public static boolean ascii_fast_path = false;
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        String[] shardCounts = (args.length > 1 ? args[1] : "1,2,4").split(",");
+        boolean verify = args.length > 2 && args[2].equals("verify");
+
+        try {
+            Result reference = verify ? analyseInProcess(file) : null;
+            long first = 0;
+            for (String shardCount : shardCounts) {
+                int shards = Integer.parseInt(shardCount);
+                long before = System.nanoTime();
+                Result result = analyse(file, shards);
+                long total = (System.nanoTime() - before) / 1_000_000;
+                if (first == 0) first = total;
+
+                System.out.println(shards + " shard(s):");
+                result.report();
+                System.out.println("  total in milliseconds: " + total
+                        + String.format(" (speed-up %.2f)", (double) first / Math.max(1, total)));
+                if (verify)
+                    System.out.println("  same result as one JVM: " + result.sameAs(reference));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Analyse a file with one worker process per shard and merge their results.
+     * @param file Path to the data.
+     * @param shards Number of shards.
+     * @return Merged hashtag counts and sorted scores of the whole file.
+     */
+    public static Result analyse(String file, int shards) throws IOException {
+        long start = System.nanoTime();
+        long[] starts = ParallelTweetReader.splitShards(file, shards, ForkJoinPool.commonPool());
+        long split = System.nanoTime();
+
+        int threads = worker_threads > 0 ? worker_threads : Math.max(1, Runtime.getRuntime().availableProcessors() / shards);
+        List<Process> processes = new ArrayList<>(shards);
+        ExecutorService readers = Executors.newFixedThreadPool(shards, (Runnable r) -> {
+            Thread thread = new Thread(r, "shard-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<ShardResult> results = new ArrayList<>(shards);
+        long[] workerNanos = new long[shards];
+        try {
+            for (int i = 0; i < shards; i++)
+                processes.add(launch(file, starts[i], starts[i + 1], i, threads));
+
+            // Drain every pipe on its own thread, a worker blocks when its pipe is full.
+            List<Future<ShardResult>> futures = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                Process process = processes.get(i);
+                int shard = i;
+                futures.add(readers.submit(() -> {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(process.getInputStream(), 1 << 16))) {
+                        ShardResult result = ShardResult.read(in);
+                        workerNanos[shard] = System.nanoTime() - split;
+                        return result;
+                    }
+                }));
+            }
+            for (int i = 0; i < shards; i++) {
+                results.add(futures.get(i).get());
+                int exitCode = processes.get(i).waitFor();
+                if (exitCode != 0)
+                    throw new IOException("Worker of shard " + i + " exited with code " + exitCode);
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the workers", e);
+        } finally {
+            readers.shutdownNow();
+            for (Process process : processes)
+                if (process.isAlive()) process.destroyForcibly();
+        }
+        long received = System.nanoTime();
+
+        HashMap<String, Integer> hashtags = ShardMerger.mergeHashtags(results);
+        long mergedHashtags = System.nanoTime();
+        ShardMerger.MergedScores scores = ShardMerger.mergeScores(results);
+        long mergedScores = System.nanoTime();
+
+        return new Result(hashtags, scores.getScores(), scores.getOrder(), results, workerNanos,
+                split - start, received - split, mergedHashtags - received, mergedScores - mergedHashtags);
+    }
+
+    /**
+     * Launch a worker JVM for one shard, with the classpath of this JVM and the sentiment scorer of ascii_fast_path.
+     */
+    private static Process launch(String file, long lo, long hi, int shard, int threads) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (worker_heap != null)
+            command.add("-Xmx" + worker_heap);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.addAll(Arrays.asList(file, Long.toString(lo), Long.toString(hi), Integer.toString(shard),
+                Integer.toString(threads), positive_words, negative_words, Boolean.toString(ascii_fast_path)));
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Analyse a file in this JVM with the same tasks as the workers.
+     * @param file Path to the data.
+     * @return Hashtag counts and sorted scores of the whole file.
+     */
+    public static Result analyseInProcess(String file) throws IOException {
+        SentimentLexicon lexicon = WordListReader.compile(positive_words, negative_words);
+        HashtagDictionary dictionary = new HashtagDictionary();
+        Tweet[] tweets = TweetReader.readData(file, dictionary).toArray(new Tweet[0]);
+        TaskConfig config = new TaskConfig(ShardWorker.threshold, ascii_fast_path);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        HashMap<String, Integer> hashtags = dictionary.toMap(pool.invoke(new CountHashtagIdsTask(tweets, dictionary.size(), config)));
+        ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(tweets, lexicon, config);
+        pool.invoke(scoreTask);
+        SentimentScores scores = scoreTask.getResult();
+        pool.invoke(new SortSentimentScoresTask(scores, config));
+
+        int[] sorted = new int[scores.size()];
+        for (int k = 0; k < sorted.length; k++)
+            sorted[k] = scores.getSortedScore(k);
+        return new Result(hashtags, sorted, scores.getOrder(), new ArrayList<>(), new long[0], 0, 0, 0, 0);
+    }
+
+    /**
+     * Merged result of a sharded run and where its time went.
+     */
+    public static class Result {
+        private final HashMap<String, Integer> hashtags;
+        private final int[] sortedScores;
+        private final int[] order;
+        private final List<ShardResult> shards;
+        private final long[] workerNanos;
+        private final long splitNanos;
+        private final long workersNanos;
+        private final long mergeHashtagsNanos;
+        private final long mergeScoresNanos;
+
+        Result(HashMap<String, Integer> hashtags, int[] sortedScores, int[] order, List<ShardResult> shards,
+               long[] workerNanos, long splitNanos, long workersNanos, long mergeHashtagsNanos, long mergeScoresNanos) {
+            this.hashtags = hashtags;
+            this.sortedScores = sortedScores;
+            this.order = order;
+            this.shards = shards;
+            this.workerNanos = workerNanos;
+            this.splitNanos = splitNanos;
+            this.workersNanos = workersNanos;
+            this.mergeHashtagsNanos = mergeHashtagsNanos;
+            this.mergeScoresNanos = mergeScoresNanos;
+        }
+
+        /**
+         * @return HashMap from hashtag to its count in the whole file.
+         */
+        public HashMap<String, Integer> getHashtags() {
+            return hashtags;
+        }
+
+        /**
+         * @return All scores in ascending order.
+         */
+        public int[] getSortedScores() {
+            return sortedScores;
+        }
+
+        /**
+         * @return Row in the file of every sorted score.
+         */
+        public int[] getOrder() {
+            return order;
+        }
+
+        /**
+         * @return Time to merge the partial results in nanoseconds.
+         */
+        public long getMergeNanos() {
+            return mergeHashtagsNanos + mergeScoresNanos;
+        }
+
+        public boolean sameAs(Result other) {
+            return hashtags.equals(other.hashtags) && Arrays.equals(sortedScores, other.sortedScores)
+                    && Arrays.equals(order, other.order);
+        }
+
+        void report() {
+            System.out.println("  # Tweets: " + sortedScores.length + ", # hashtags: " + hashtags.size());
+            System.out.println("  split in milliseconds: " + splitNanos / 1_000_000);
+            for (ShardResult shard : shards)
+                System.out.println("  shard " + shard.getShard() + ": " + shard.size() + " tweets, done after "
+                        + workerNanos[shard.getShard()] / 1_000_000 + " ms (read " + shard.getReadNanos() / 1_000_000
+                        + ", count " + shard.getCountNanos() / 1_000_000 + ", score and sort "
+                        + shard.getScoreNanos() / 1_000_000 + ")");
+            System.out.println("  workers in milliseconds: " + workersNanos / 1_000_000);
+            System.out.println("  merge in milliseconds: hashtags " + mergeHashtagsNanos / 1_000_000
+                    + ", scores " + mergeScoresNanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.OffHeapTweetStore;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.CalculateSentimentScoreOffHeapTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagOffHeapTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the heap backend (Tweet[] with a String per field) with the off-heap backend (OffHeapTweetStore)
+ * on loading, sentiment scoring and hashtag counting. For both backends it reports the live heap and direct memory
+ * after loading and the number of collections and GC time while loading and while running the tasks.
+ * Neither run calls System.gc() in the timed part, so GC cost shows up in the numbers.
+ *
+ * Run one backend per JVM for clean numbers, "both" runs them one after the other and checks that they agree.
+ * Arguments (all optional): csv file, backend ("heap", "offheap" or "both"), repetitions.
+ */
+public class StorageComparison {
+    // Sequential threshold of the tasks.
+    public static int threshold = 3500;
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        String backend = args.length > 1 ? args[1] : "both";
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        try {
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            TaskConfig config = new TaskConfig(threshold);
+            HashMap<String, Integer> heapCounts = null, offHeapCounts = null;
+            int[] heapScores = null, offHeapScores = null;
+
+            if (!backend.equals("offheap")) {
+                System.out.println("Backend heap (Tweet[])");
+                HashtagDictionary dictionary = new HashtagDictionary();
+                GcSnapshot before = new GcSnapshot();
+                Tweet[] tweets = TweetReader.readData(file, dictionary).toArray(new Tweet[0]);
+                before.report("load");
+                reportMemory();
+
+                before = new GcSnapshot();
+                for (int i = 0; i < repetitions; i++) {
+                    ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(tweets, lexicon, config);
+                    pool.invoke(scoreTask);
+                    heapScores = scoreTask.getResult().getScores();
+                    heapCounts = dictionary.toMap(pool.invoke(new CountHashtagIdsTask(tweets, dictionary.size(), config)));
+                }
+                before.report(repetitions + "x score and count");
+                tweets = null;
+                System.out.println();
+            }
+
+            if (!backend.equals("heap")) {
+                System.out.println("Backend off-heap (OffHeapTweetStore)");
+                HashtagDictionary dictionary = new HashtagDictionary();
+                GcSnapshot before = new GcSnapshot();
+                OffHeapTweetStore store = TweetReader.readOffHeap(file, dictionary);
+                before.report("load");
+                reportMemory();
+                System.out.println("  direct memory held by the store in MB: " + (store.getOffHeapBytes() >> 20));
+
+                before = new GcSnapshot();
+                for (int i = 0; i < repetitions; i++) {
+                    CalculateSentimentScoreOffHeapTask scoreTask = new CalculateSentimentScoreOffHeapTask(store, lexicon, config);
+                    pool.invoke(scoreTask);
+                    offHeapScores = scoreTask.getScores();
+                    offHeapCounts = store.toHashtagMap(pool.invoke(new CountHashtagOffHeapTask(store, config)));
+                }
+                before.report(repetitions + "x score and count");
+                System.out.println();
+            }
+
+            if (heapScores != null && offHeapScores != null) {
+                System.out.println("Same scores in both backends: " + Arrays.equals(heapScores, offHeapScores));
+                System.out.println("Same hashtag counts in both backends: " + heapCounts.equals(offHeapCounts));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Print the live heap after a full collection and the direct memory in use.
+     */
+    private static void reportMemory() {
+        System.gc();
+        long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+            if (pool.getName().equals("direct"))
+                direct = pool.getMemoryUsed();
+        System.out.println("  live heap in MB: " + (heap >> 20) + ", direct memory in MB: " + (direct >> 20));
+    }
+
+    /**
+     * Wall time, number of collections and GC time since construction, summed over all collectors.
+     */
+    private static class GcSnapshot {
+        private final long nanos = System.nanoTime();
+        private final long collections;
+        private final long gcMillis;
+
+        GcSnapshot() {
+            long count = 0, time = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                time += Math.max(0, collector.getCollectionTime());
+            }
+            collections = count;
+            gcMillis = time;
+        }
+
+        void report(String phase) {
+            long elapsed = (System.nanoTime() - nanos) / 1_000_000;
+            GcSnapshot now = new GcSnapshot();
+            System.out.println("  " + phase + ": " + elapsed + " ms, " + (now.collections - collections)
+                    + " collections, " + (now.gcMillis - gcMillis) + " ms in GC");
+        }
+    }
+}
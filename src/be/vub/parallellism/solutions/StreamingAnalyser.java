@@ -0,0 +1,208 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.ScoreHistogram;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.TweetBatchReader;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Counts hashtags and the sentiment score distribution of a file without holding all of its tweets in memory.
+ *
+ * A reader thread parses the csv into batches of batch_size tweets and hands them over through a queue of
+ * queue_capacity batches. Every batch is counted and scored in parallel on the ForkJoinPool while the next one
+ * is parsed, added to the running totals and dropped. At most queue_capacity + 2 batches are alive at any time,
+ * so peak memory depends on the batch size and not on the size of the file.
+ * The totals equal CountHashtagTask and a sort of the scores of the whole file.
+ *
+ * Arguments (all optional): csv file, batch size, "verify" to compare with the in-memory analysis.
+ */
+public class StreamingAnalyser {
+    // Number of tweets per batch.
+    public static int batch_size = 50_000;
+    // Parsed batches waiting to be processed.
+    public static int queue_capacity = 2;
+    // Marks the end of the stream in the queue.
+    private static final Tweet[] END = new Tweet[0];
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        if (args.length > 1) batch_size = Integer.parseInt(args[1]);
+        boolean verify = args.length > 2 && args[2].equals("verify");
+
+        try {
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            HashtagDictionary dictionary = new HashtagDictionary();
+
+            long before = System.currentTimeMillis();
+            Result result = analyse(file, batch_size, ForkJoinPool.commonPool(), lexicon, dictionary, new TaskConfig(3500));
+            long after = System.currentTimeMillis();
+            System.out.println("# Tweets in dataset: " + result.getTweetCount() + " in " + result.getBatchCount() + " batches");
+            System.out.println("Elapsed time in milliseconds to stream, count and score: " + (after - before));
+            System.out.println("Peak heap in MB: " + (peakHeap() >> 20));
+            System.out.println("Distinct hashtags: " + result.getHashtagMap(dictionary).size());
+            System.out.println("Score distribution: " + result.getScores());
+
+            if (verify) {
+                Tweet[] tweets = TweetReader.readData(file).toArray(new Tweet[0]);
+                HashMap<String, Integer> hashtagCount = ForkJoinPool.commonPool().invoke(new CountHashtagTask(tweets, 3500));
+                ScoreHistogram scores = new ScoreHistogram();
+                for (Tweet tweet : tweets)
+                    scores.add(new int[] {tweet.calculateSentimentScore(lexicon)});
+
+                HashMap<String, Long> streamedCount = result.getHashtagMap(dictionary);
+                boolean sameCounts = hashtagCount.size() == streamedCount.size();
+                for (HashMap.Entry<String, Integer> entry : hashtagCount.entrySet())
+                    sameCounts &= Long.valueOf(entry.getValue()).equals(streamedCount.get(entry.getKey()));
+                System.out.println("Same hashtag counts as in memory: " + sameCounts);
+                System.out.println("Same score distribution as in memory: " + scores.equals(result.getScores()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stream a file through hashtag counting and sentiment scoring.
+     * @param file Path to the data.
+     * @param batchSize Number of tweets per batch.
+     * @param pool ForkJoinPool to count and score on.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param dictionary Dictionary to encode the hashtags in, the counts are indexed by its ids.
+     * @param config Configuration of the tasks that run on every batch.
+     * @return Hashtag counts and score distribution of all tweets.
+     */
+    public static Result analyse(String file, int batchSize, ForkJoinPool pool, SentimentLexicon lexicon,
+                                 HashtagDictionary dictionary, TaskConfig config) throws IOException {
+        BlockingQueue<Tweet[]> queue = new ArrayBlockingQueue<>(queue_capacity);
+        // Written before END is queued, so the consumer sees it after taking END.
+        Throwable[] failure = new Throwable[1];
+
+        Thread reader = new Thread(() -> {
+            boolean interrupted = false;
+            try (TweetBatchReader batches = new TweetBatchReader(file, batchSize, dictionary)) {
+                Tweet[] batch;
+                while ((batch = batches.nextBatch()) != null)
+                    queue.put(batch);
+            } catch (InterruptedException e) {
+                // The consumer stopped, nobody takes END anymore.
+                interrupted = true;
+            } catch (Throwable e) {
+                // Also parse errors (SuperCsvException) and other RuntimeExceptions, the consumer rethrows them.
+                failure[0] = e;
+            } finally {
+                if (!interrupted) {
+                    try {
+                        queue.put(END);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }
+        }, "tweet-batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        Result result = new Result();
+        try {
+            Tweet[] batch;
+            while ((batch = queue.take()) != END) {
+                // Every id in the batch was assigned before the batch was queued, so the current size covers them.
+                CountHashtagIdsTask countTask = new CountHashtagIdsTask(batch, dictionary.size(), config);
+                ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(batch, lexicon, config);
+                pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(countTask, scoreTask)));
+
+                result.add(countTask.join(), scoreTask.getResult().getScores());
+            }
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while streaming " + file, e);
+        } finally {
+            // Stops the reader if processing a batch failed, no-op after a normal end.
+            reader.interrupt();
+        }
+        if (failure[0] instanceof IOException) throw (IOException) failure[0];
+        if (failure[0] instanceof RuntimeException) throw (RuntimeException) failure[0];
+        if (failure[0] instanceof Error) throw (Error) failure[0];
+        return result;
+    }
+
+    /**
+     * @return Highest heap usage since the JVM started, summed over the heap memory pools.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /**
+     * Running totals of a stream.
+     */
+    public static class Result {
+        private long[] hashtagCounts = new long[0];
+        private final ScoreHistogram scores = new ScoreHistogram();
+        private long tweets;
+        private int batches;
+
+        void add(int[] batchCounts, int[] batchScores) {
+            if (batchCounts.length > hashtagCounts.length)
+                hashtagCounts = Arrays.copyOf(hashtagCounts, Math.max(batchCounts.length, hashtagCounts.length * 2));
+            for (int id = 0; id < batchCounts.length; id++)
+                hashtagCounts[id] += batchCounts[id];
+            scores.add(batchScores);
+            tweets += batchScores.length;
+            batches++;
+        }
+
+        /**
+         * @return Count of every hashtag id, may be longer than the dictionary.
+         */
+        public long[] getHashtagCounts() {
+            return hashtagCounts;
+        }
+
+        /**
+         * @param dictionary Dictionary the stream was encoded in.
+         * @return HashMap from hashtag to count, only hashtags with a count above 0.
+         */
+        public HashMap<String, Long> getHashtagMap(HashtagDictionary dictionary) {
+            HashMap<String, Long> result = new HashMap<>();
+            for (int id = 0; id < hashtagCounts.length; id++)
+                if (hashtagCounts[id] > 0)
+                    result.put(dictionary.nameOf(id), hashtagCounts[id]);
+            return result;
+        }
+
+        public ScoreHistogram getScores() {
+            return scores;
+        }
+
+        public long getTweetCount() {
+            return tweets;
+        }
+
+        public int getBatchCount() {
+            return batches;
+        }
+    }
+}
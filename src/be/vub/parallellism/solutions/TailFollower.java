@@ -0,0 +1,173 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.ScoreHistogram;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.ParallelTweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.CountHashtagTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Follows a csv file that is being appended to and keeps its hashtag counts and score distribution up to date.
+ *
+ * The follower remembers the byte offset after the last record it read. A refresh only reads from that offset to the
+ * end of the last complete record: a record that is still being written (no newline yet) is left for the next refresh.
+ * The new records are parsed in parallel with ParallelTweetReader, in micro-batches of at most max_batch_bytes,
+ * counted and scored with CountHashtagIdsTask and ScoreSentimentsTask, and added to the running totals
+ * (StreamingAnalyser.Result). A refresh costs time in the size of the new records, not of the file.
+ * The totals always equal a full analysis of the records up to the offset.
+ *
+ * The file is assumed to be append-only. If it gets shorter than the offset it was truncated or replaced,
+ * and the follower starts over from the beginning.
+ *
+ * Arguments (all optional): csv file, poll interval in ms, "verify" to compare with a full recompute after every refresh.
+ */
+public class TailFollower {
+    // Milliseconds between two refreshes in main.
+    public static long poll_interval = 1000;
+    // Largest number of bytes parsed at once, so catching up with a large file does not hold it in memory.
+    public static long max_batch_bytes = 64 * 1024 * 1024;
+
+    private final String file;
+    private final ForkJoinPool pool;
+    private final SentimentLexicon lexicon;
+    private final TaskConfig config;
+    private final HashtagDictionary dictionary = new HashtagDictionary();
+    private StreamingAnalyser.Result totals = new StreamingAnalyser.Result();
+    private long offset;
+    private int restarts;
+
+    /**
+     * @param file Path to the data.
+     * @param pool ForkJoinPool to parse, count and score on.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration of the tasks that run on every micro-batch.
+     */
+    public TailFollower(String file, ForkJoinPool pool, SentimentLexicon lexicon, TaskConfig config) {
+        this.file = file;
+        this.pool = pool;
+        this.lexicon = lexicon;
+        this.config = config;
+    }
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        if (args.length > 1) poll_interval = Long.parseLong(args[1]);
+        boolean verify = args.length > 2 && args[2].equals("verify");
+
+        try {
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            TailFollower follower = new TailFollower(file, ForkJoinPool.commonPool(), lexicon, new TaskConfig(3500));
+            while (true) {
+                long offset = follower.getOffset();
+                long before = System.currentTimeMillis();
+                int added = follower.refresh();
+                long after = System.currentTimeMillis();
+                if (added > 0) {
+                    StreamingAnalyser.Result totals = follower.getTotals();
+                    System.out.println("+" + added + " tweets (" + (follower.getOffset() - offset) + " bytes) in "
+                            + (after - before) + " ms, total " + totals.getTweetCount() + " tweets, "
+                            + totals.getHashtagMap(follower.getDictionary()).size() + " hashtags, mean score "
+                            + String.format("%.4f", totals.getScores().getMean()));
+                    if (verify)
+                        System.out.println("Same totals as a full recompute: " + follower.matchesRecompute());
+                }
+                Thread.sleep(poll_interval);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the complete records that were appended since the last refresh and add them to the totals.
+     * @return Number of new tweets.
+     */
+    public int refresh() throws IOException {
+        long size = Files.size(Paths.get(file));
+        if (size < offset) {
+            // Truncated or replaced, the totals no longer describe the file. Hashtag ids stay valid.
+            totals = new StreamingAnalyser.Result();
+            offset = 0;
+            restarts++;
+        }
+
+        int added = 0;
+        while (offset < size) {
+            long end = ParallelTweetReader.completeRecordsEnd(file, offset, Math.min(size, offset + max_batch_bytes));
+            if (end == offset) break;
+
+            Tweet[] batch = ParallelTweetReader.readShard(file, offset, end, pool, dictionary).toArray(new Tweet[0]);
+            // Every id in the batch was assigned while parsing, so the current size covers them.
+            CountHashtagIdsTask countTask = new CountHashtagIdsTask(batch, dictionary.size(), config);
+            ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(batch, lexicon, config);
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(countTask, scoreTask)));
+
+            totals.add(countTask.join(), scoreTask.getResult().getScores());
+            offset = end;
+            added += batch.length;
+        }
+        return added;
+    }
+
+    /**
+     * Analyse the records up to the offset from scratch in one pass with CountHashtagTask, and compare with the
+     * running totals. TweetReader can not be used here, it reads ahead into a record that is still being written.
+     * @return True if the tweet count, hashtag counts and score distribution are the same.
+     */
+    public boolean matchesRecompute() throws IOException {
+        Tweet[] tweets = ParallelTweetReader.readShard(file, 0, offset, pool, null).toArray(new Tweet[0]);
+        HashMap<String, Integer> hashtagCount = pool.invoke(new CountHashtagTask(tweets, config));
+        ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(tweets, lexicon, config);
+        pool.invoke(scoreTask);
+        ScoreHistogram scores = new ScoreHistogram();
+        scores.add(scoreTask.getResult().getScores());
+
+        HashMap<String, Long> followedCount = totals.getHashtagMap(dictionary);
+        boolean same = tweets.length == totals.getTweetCount() && hashtagCount.size() == followedCount.size();
+        for (HashMap.Entry<String, Integer> entry : hashtagCount.entrySet())
+            same &= Long.valueOf(entry.getValue()).equals(followedCount.get(entry.getKey()));
+        return same && scores.equals(totals.getScores());
+    }
+
+    /**
+     * @return Offset after the last record that was read.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return Running totals of all records up to the offset. The batch count is the number of micro-batches.
+     */
+    public StreamingAnalyser.Result getTotals() {
+        return totals;
+    }
+
+    /**
+     * @return Dictionary the hashtag counts of the totals are indexed by.
+     */
+    public HashtagDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return Number of times the file got shorter and the follower started over.
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+}
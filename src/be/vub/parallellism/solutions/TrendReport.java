@@ -0,0 +1,82 @@
+package be.vub.parallellism.solutions;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.TimeBuckets;
+import be.vub.parallellism.data.models.TimeGranularity;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.models.TweetTimes;
+import be.vub.parallellism.data.readers.TweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.AggregateTimeBucketsTask;
+import be.vub.parallellism.solutions.tasks.ParseTweetTimesTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Trend report: tweets, mean sentiment and top hashtags per hour over the last week of the dataset,
+ * and the top hashtags of the sliding day ending at every day boundary.
+ *
+ * Arguments (all optional): csv file, number of days, granularity (MINUTE, HOUR or DAY).
+ */
+public class TrendReport {
+
+    public static void main(String[] args) {
+        String file = args.length > 0 ? args[0] : "./files/tweets_3500000.csv";
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        TimeGranularity granularity = args.length > 2 ? TimeGranularity.valueOf(args[2]) : TimeGranularity.HOUR;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        try {
+            HashtagDictionary dictionary = new HashtagDictionary();
+            Tweet[] tweets = TweetReader.readDataCached(file, pool, dictionary).toArray(new Tweet[0]);
+            SentimentLexicon lexicon = WordListReader.compile("./files/positive-words.txt", "./files/negative-words.txt");
+            System.out.println("# Tweets in dataset: " + tweets.length);
+
+            long before = System.currentTimeMillis();
+            ParseTweetTimesTask parseTask = new ParseTweetTimesTask(tweets, 3500);
+            pool.invoke(parseTask);
+            TweetTimes times = parseTask.getResult();
+            ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(tweets, lexicon, 3500);
+            pool.invoke(scoreTask);
+            int[] scores = scoreTask.getResult().getScores();
+            long after = System.currentTimeMillis();
+            System.out.println("Elapsed time in milliseconds to parse times and score tweets: " + (after - before));
+            if (times.getMax() == TweetTimes.MISSING) {
+                System.out.println("No tweet times could be parsed.");
+                return;
+            }
+
+            // The last days of the dataset, ending with the bucket of the latest tweet.
+            long to = granularity.floor(times.getMax()) + granularity.getSeconds();
+            long from = to - days * 86_400L;
+            before = System.currentTimeMillis();
+            TimeBuckets buckets = pool.invoke(new AggregateTimeBucketsTask(tweets, times, scores, dictionary, from, to, granularity, 3500));
+            after = System.currentTimeMillis();
+            System.out.println("Elapsed time in milliseconds to aggregate " + buckets.size() + " buckets: " + (after - before));
+            System.out.println();
+
+            for (int b = 0; b < buckets.size(); b++) {
+                if (buckets.getTweetCount(b) == 0) continue;
+                System.out.printf("%s %8d tweets  sentiment %+.3f  %s%n", Instant.ofEpochSecond(buckets.getBucketStart(b)),
+                        buckets.getTweetCount(b), buckets.getMeanSentiment(b), buckets.getTopHashtags(b, 3));
+            }
+
+            // Sliding day: the window that ends at every day boundary.
+            int window = (int) (86_400L / granularity.getSeconds());
+            List<List<Pair<String, Integer>>> sliding = buckets.getSlidingTopHashtags(window, 5);
+            if (sliding.isEmpty()) return;
+            System.out.println();
+            System.out.println("Top hashtags of the sliding day:");
+            for (int s = sliding.size() - 1; s >= 0; s -= window)
+                System.out.println("until " + Instant.ofEpochSecond(buckets.getBucketStart(s + window)) + "  " + sliding.get(s));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package be.vub.parallellism.solutions.pipeline;
+
+import be.vub.parallellism.data.models.Tweet;
+
+/**
+ * Unit of work that flows through a pipeline. Every stage fills in its part and passes the batch on,
+ * stages that no longer need the tweets drop them so they can be collected before the batch reaches the sink.
+ */
+public class Batch {
+    private Tweet[] tweets;
+    private int size;
+    private int[] scores;
+    private int[] hashtagCounts;
+
+    public Batch(Tweet[] tweets) {
+        this.tweets = tweets;
+        this.size = tweets.length;
+    }
+
+    /**
+     * @return Tweets of the batch, null once a stage released them.
+     */
+    public Tweet[] getTweets() {
+        return tweets;
+    }
+
+    public void setTweets(Tweet[] tweets) {
+        this.tweets = tweets;
+        this.size = tweets.length;
+    }
+
+    /**
+     * Drop the tweets, the size of the batch is kept.
+     */
+    public void releaseTweets() {
+        tweets = null;
+    }
+
+    /**
+     * @return Number of tweets in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Sentiment score of every tweet, null before scoring.
+     */
+    public int[] getScores() {
+        return scores;
+    }
+
+    public void setScores(int[] scores) {
+        this.scores = scores;
+    }
+
+    /**
+     * @return Count of every hashtag id in the batch, null before counting.
+     */
+    public int[] getHashtagCounts() {
+        return hashtagCounts;
+    }
+
+    public void setHashtagCounts(int[] hashtagCounts) {
+        this.hashtagCounts = hashtagCounts;
+    }
+}
@@ -0,0 +1,65 @@
+package be.vub.parallellism.solutions.pipeline;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.TweetBatchReader;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * First stage of a pipeline: parses a csv file into batches on its own thread.
+ * submit blocks while the output buffer is full, so parsing never runs more than maxBuffer batches ahead
+ * of the slowest subscriber. Parsing is sequential, its parallelism is always 1.
+ */
+public class BatchPublisher extends SubmissionPublisher<Batch> implements Runnable {
+    private final String file;
+    private final int batchSize;
+    private final HashtagDictionary dictionary;
+    private final StageMetrics metrics;
+
+    /**
+     * @param file Path to the data.
+     * @param batchSize Tweets per batch.
+     * @param dictionary Dictionary to encode the hashtags in, or null to keep them as plain lists.
+     * @param executor Executor that delivers the batches to the subscribers.
+     * @param maxBuffer Batches that can wait for a subscriber.
+     */
+    public BatchPublisher(String file, int batchSize, HashtagDictionary dictionary, Executor executor, int maxBuffer) {
+        super(executor, maxBuffer);
+        this.file = file;
+        this.batchSize = batchSize;
+        this.dictionary = dictionary;
+        this.metrics = new StageMetrics("parse", 1, this);
+    }
+
+    /**
+     * Parse the file and publish its batches, then complete. Run it on a dedicated thread.
+     */
+    @Override
+    public void run() {
+        try (TweetBatchReader reader = new TweetBatchReader(file, batchSize, dictionary)) {
+            while (!isClosed()) {
+                metrics.started();
+                long before = System.nanoTime();
+                Tweet[] tweets = reader.nextBatch();
+                long elapsed = System.nanoTime() - before;
+                if (tweets == null) {
+                    metrics.done();
+                    break;
+                }
+                submit(new Batch(tweets));
+                metrics.finished(tweets.length, elapsed);
+                metrics.done();
+            }
+            close();
+        } catch (IOException | RuntimeException e) {
+            closeExceptionally(e);
+        }
+    }
+
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+}
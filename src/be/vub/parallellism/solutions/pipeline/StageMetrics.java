@@ -0,0 +1,97 @@
+package be.vub.parallellism.solutions.pipeline;
+
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and queue depth of one pipeline stage. Updated by the workers of the stage, read by a reporter.
+ */
+public class StageMetrics {
+    private final String name;
+    private final int parallelism;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder tweets = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    // Batches taken from upstream that are not finished yet.
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Output buffer of the stage, and the most batches seen waiting in it.
+    private final SubmissionPublisher<?> output;
+    private final LongAccumulator maxBuffered = new LongAccumulator(Math::max, 0);
+
+    StageMetrics(String name, int parallelism, SubmissionPublisher<?> output) {
+        this.name = name;
+        this.parallelism = parallelism;
+        this.output = output;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * A batch left the stage.
+     * @param size Tweets in the batch.
+     * @param nanos Time the stage worked on it.
+     */
+    void finished(int size, long nanos) {
+        batches.increment();
+        tweets.add(size);
+        busyNanos.add(nanos);
+        maxBuffered.accumulate(getBuffered());
+    }
+
+    void done() {
+        inFlight.decrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getTweets() {
+        return tweets.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Batches published by this stage that the slowest subscriber did not take yet.
+     */
+    public int getBuffered() {
+        return output.estimateMaximumLag();
+    }
+
+    public long getMaxBuffered() {
+        return maxBuffered.get();
+    }
+
+    /**
+     * @param elapsedNanos Time the pipeline has been running.
+     * @return Fraction of the time the workers of this stage were busy, near 1 for the bottleneck.
+     */
+    public double getUtilization(long elapsedNanos) {
+        return (double) busyNanos.sum() / ((double) elapsedNanos * parallelism);
+    }
+
+    /**
+     * @param elapsedNanos Time the pipeline has been running.
+     * @return One line report: tweets per second, utilization and queue depth.
+     */
+    public String report(long elapsedNanos) {
+        return String.format("%-8s x%-3d %8d batches %10.0f tweets/s  busy %5.1f%%  in flight %3d  buffered %3d (max %d)",
+                name, parallelism, getBatches(), getTweets() / (elapsedNanos / 1e9), 100 * getUtilization(elapsedNanos),
+                getInFlight(), getBuffered(), getMaxBuffered());
+    }
+}
@@ -0,0 +1,160 @@
+package be.vub.parallellism.solutions.pipeline;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Pipeline stage that transforms batches on a fixed number of worker threads.
+ *
+ * The stage requests one batch per worker from upstream and one more every time a batch is published, so at most
+ * parallelism batches are in the stage. Results are published in the order they finish through a bounded buffer:
+ * when downstream falls behind, submit blocks the workers, the stage stops requesting and the backpressure
+ * travels upstream to the parser.
+ * The buffer is drained by a delivery thread of its own, like in BatchPublisher. If the workers delivered too,
+ * a worker blocked in submit would wait for a delivery task queued behind it on the same pool.
+ * Both thread pools are shut down when the stage is done: the workers once the last batch was published,
+ * the delivery thread once every subscriber got onComplete or onError, as a later request would still need it.
+ * A transformation that returns null drops the batch.
+ */
+public class TransformStage extends SubmissionPublisher<Batch> implements Flow.Processor<Batch, Batch> {
+    private final UnaryOperator<Batch> transformation;
+    private final ExecutorService workers;
+    private final ExecutorService delivery;
+    // Subscribers that did not get onComplete or onError yet.
+    private final AtomicInteger openSubscribers = new AtomicInteger();
+    private final StageMetrics metrics;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean upstreamDone;
+    private Flow.Subscription subscription;
+
+    /**
+     * @param name Name of the stage in reports.
+     * @param parallelism Number of worker threads.
+     * @param maxBuffer Batches that can wait for downstream.
+     * @param transformation Work done on every batch.
+     */
+    public TransformStage(String name, int parallelism, int maxBuffer, UnaryOperator<Batch> transformation) {
+        this(name, parallelism, maxBuffer, transformation,
+                Executors.newFixedThreadPool(parallelism, daemon("pipeline-" + name)),
+                Executors.newSingleThreadExecutor(daemon("pipeline-" + name + "-delivery")));
+    }
+
+    private TransformStage(String name, int parallelism, int maxBuffer, UnaryOperator<Batch> transformation,
+                           ExecutorService workers, ExecutorService delivery) {
+        super(delivery, maxBuffer);
+        this.transformation = transformation;
+        this.workers = workers;
+        this.delivery = delivery;
+        this.metrics = new StageMetrics(name, parallelism, this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(metrics.getParallelism());
+    }
+
+    @Override
+    public void onNext(Batch batch) {
+        inFlight.incrementAndGet();
+        metrics.started();
+        workers.execute(() -> {
+            try {
+                long before = System.nanoTime();
+                int size = batch.size();
+                Batch result = transformation.apply(batch);
+                long elapsed = System.nanoTime() - before;
+                if (result != null) submit(result);
+                metrics.finished(size, elapsed);
+                subscription.request(1);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                closeExceptionally(e);
+            } finally {
+                metrics.done();
+                if (inFlight.decrementAndGet() == 0 && upstreamDone) finish();
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+        workers.shutdown();
+        if (openSubscribers.get() == 0) delivery.shutdown();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        if (inFlight.get() == 0) finish();
+    }
+
+    /**
+     * Complete downstream once upstream completed and the last batch was published. Can run twice, close is idempotent.
+     */
+    private void finish() {
+        close();
+        workers.shutdown();
+        if (openSubscribers.get() == 0) delivery.shutdown();
+    }
+
+    /**
+     * Subscribe, and shut the delivery thread down after the last subscriber got its final signal.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Batch> subscriber) {
+        openSubscribers.incrementAndGet();
+        super.subscribe(new Flow.Subscriber<Batch>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(Batch batch) {
+                subscriber.onNext(batch);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                try {
+                    subscriber.onError(throwable);
+                } finally {
+                    closed();
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    subscriber.onComplete();
+                } finally {
+                    closed();
+                }
+            }
+
+            private void closed() {
+                // Runs on the delivery thread, shutdown lets it return.
+                if (openSubscribers.decrementAndGet() == 0 && isClosed()) delivery.shutdown();
+            }
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return (Runnable r) -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+}
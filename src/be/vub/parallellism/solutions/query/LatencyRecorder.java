@@ -0,0 +1,89 @@
+package be.vub.parallellism.solutions.query;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, for percentiles over all requests without keeping every sample.
+ *
+ * Buckets are log-linear: values below 64 have a bucket each, above that every power of two is split in 32 buckets.
+ * A percentile is reported as the upper bound of its bucket, which is at most 1/32 (about 3%) above the true value.
+ * Any number of threads can record at once.
+ */
+public class LatencyRecorder {
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int BUCKETS = LINEAR + 58 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos Latency of one request.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(nanos));
+        max.accumulate(nanos);
+    }
+
+    /**
+     * @return Number of recorded requests.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100, e.g. 99.
+     * @return Latency in nanoseconds that percentile of the requests stayed below, 0 without requests.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(upperBoundOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR) return (int) value;
+        // Shift so that the top 6 bits remain, the top bit is implied by the shift.
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * @return Count, p50, p99 and maximum in milliseconds.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d requests, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                getCount(), getPercentile(50) / 1e6, getPercentile(99) / 1e6, getMax() / 1e6);
+    }
+}
@@ -0,0 +1,172 @@
+package be.vub.parallellism.solutions.query;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * In-memory indexes over a loaded dataset, built once so a query only reads a few array slots.
+ *
+ *  - hashtags sorted by count (highest first), so the top k hashtags are a prefix,
+ *  - the score-sorted permutation of all tweets (SentimentScores.getOrder()),
+ *  - for every hashtag the tweets that use it, in CSR form and in the same score order:
+ *    the tweets of hashtag id are rows[offsets[id], offsets[id+1]), most negative first,
+ *  - a HashMap from tweet id to row.
+ * A tweet that uses a hashtag more than once is listed once for it.
+ * The index is immutable after construction, so any number of threads can query it at once.
+ */
+public class QueryIndex {
+    private final Tweet[] tweets;
+    private final int[] scores;
+    private final int[] order;
+
+    private final HashMap<String, Integer> hashtagIds;
+    private final String[] hashtagNames;
+    private final int[] hashtagCounts;
+    private final int[] topHashtags;
+
+    private final int[] offsets;
+    private final int[] rows;
+
+    private final HashMap<String, Integer> rowOfTweetid;
+
+    /**
+     * Build the indexes of a scored dataset.
+     * @param dictionary Dictionary the hashtags of the tweets were encoded in.
+     * @param hashtagCounts Count of every hashtag id, e.g. from CountHashtagIdsTask.
+     * @param scores Scores of the tweets, sorted (SentimentScores.getOrder() is set).
+     */
+    public QueryIndex(HashtagDictionary dictionary, int[] hashtagCounts, SentimentScores scores) {
+        this.tweets = scores.getTweets();
+        this.scores = scores.getScores();
+        this.order = scores.getOrder();
+        this.hashtagCounts = hashtagCounts;
+
+        int hashtags = hashtagCounts.length;
+        hashtagNames = new String[hashtags];
+        hashtagIds = new HashMap<>(hashtags * 4 / 3 + 1);
+        for (int id = 0; id < hashtags; id++) {
+            hashtagNames[id] = dictionary.nameOf(id);
+            hashtagIds.put(hashtagNames[id], id);
+        }
+
+        // Highest count first, ties by hashtag so the order does not depend on the ids.
+        Integer[] sorted = new Integer[hashtags];
+        for (int id = 0; id < hashtags; id++) sorted[id] = id;
+        Arrays.sort(sorted, (Integer a, Integer b) -> hashtagCounts[a] != hashtagCounts[b]
+                ? Integer.compare(hashtagCounts[b], hashtagCounts[a]) : hashtagNames[a].compareTo(hashtagNames[b]));
+        topHashtags = new int[hashtags];
+        for (int i = 0; i < hashtags; i++) topHashtags[i] = sorted[i];
+
+        // Count the tweets of every hashtag, then fill the lists walking the tweets in score order.
+        offsets = new int[hashtags + 1];
+        for (Tweet tweet : tweets) {
+            int[] ids = tweet.getHashtagIds();
+            for (int j = 0; j < ids.length; j++)
+                if (isFirst(ids, j)) offsets[ids[j] + 1]++;
+        }
+        for (int id = 0; id < hashtags; id++)
+            offsets[id + 1] += offsets[id];
+        rows = new int[offsets[hashtags]];
+        int[] cursors = Arrays.copyOf(offsets, hashtags);
+        for (int row : order) {
+            int[] ids = tweets[row].getHashtagIds();
+            for (int j = 0; j < ids.length; j++)
+                if (isFirst(ids, j)) rows[cursors[ids[j]]++] = row;
+        }
+
+        rowOfTweetid = new HashMap<>(tweets.length * 4 / 3 + 1);
+        for (int row = 0; row < tweets.length; row++)
+            rowOfTweetid.putIfAbsent(tweets[row].getTweetid(), row);
+    }
+
+    /**
+     * @return True if ids[j] does not occur before j. Tweets only have a few hashtags, so a linear scan is enough.
+     */
+    private static boolean isFirst(int[] ids, int j) {
+        for (int i = 0; i < j; i++)
+            if (ids[i] == ids[j]) return false;
+        return true;
+    }
+
+    /**
+     * @param k Number of hashtags.
+     * @return The k most used hashtags with their count, highest first.
+     */
+    public List<Pair<String, Integer>> topHashtags(int k) {
+        int n = Math.min(k, topHashtags.length);
+        List<Pair<String, Integer>> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            result.add(new Pair<>(hashtagNames[topHashtags[i]], hashtagCounts[topHashtags[i]]));
+        return result;
+    }
+
+    /**
+     * @param hashtag Hashtag.
+     * @return Number of times the hashtag is used, 0 for an unknown hashtag.
+     */
+    public int getCount(String hashtag) {
+        Integer id = hashtagIds.get(hashtag);
+        return id == null ? 0 : hashtagCounts[id];
+    }
+
+    /**
+     * @param hashtag Hashtag, or null for all tweets.
+     * @param k Number of tweets.
+     * @param negative True for the lowest scores first, false for the highest scores first.
+     * @return Rows of at most k tweets with the hashtag, ordered by score. Empty for an unknown hashtag.
+     */
+    public int[] tweetsByScore(String hashtag, int k, boolean negative) {
+        int lo = 0, hi = order.length;
+        int[] sorted = order;
+        if (hashtag != null) {
+            Integer id = hashtagIds.get(hashtag);
+            if (id == null) return new int[0];
+            lo = offsets[id];
+            hi = offsets[id + 1];
+            sorted = rows;
+        }
+
+        int n = Math.min(k, hi - lo);
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++)
+            result[i] = negative ? sorted[lo + i] : sorted[hi - 1 - i];
+        return result;
+    }
+
+    /**
+     * @param tweetid Id of a tweet.
+     * @return Row of the first tweet with the id, -1 if there is none.
+     */
+    public int rowOf(String tweetid) {
+        return rowOfTweetid.getOrDefault(tweetid, -1);
+    }
+
+    public Tweet getTweet(int row) {
+        return tweets[row];
+    }
+
+    public int getScore(int row) {
+        return scores[row];
+    }
+
+    /**
+     * @return Number of tweets.
+     */
+    public int size() {
+        return tweets.length;
+    }
+
+    /**
+     * @return Number of distinct hashtags.
+     */
+    public int getHashtagCount() {
+        return hashtagNames.length;
+    }
+}
@@ -0,0 +1,125 @@
+package be.vub.parallellism.solutions.sharding;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Merges the partial results of the shards of a file, in shard (file) order.
+ *
+ * Hashtag histograms are added per hashtag. The sorted score runs are merged k-way with a binary min-heap over the
+ * runs, ordered by the score at the head of the run and then by shard. Taking the earlier shard first on equal scores
+ * makes the merged order equal to a stable sort of the whole file, so it is the same as SortSentimentScoresTask on
+ * one JVM. The merge is O(n log k) for n tweets in k shards.
+ */
+public class ShardMerger {
+
+    /**
+     * @param shards Results of all shards.
+     * @return HashMap from hashtag to its count in all shards.
+     */
+    public static HashMap<String, Integer> mergeHashtags(List<ShardResult> shards) {
+        int capacity = 0;
+        for (ShardResult shard : shards)
+            capacity = Math.max(capacity, shard.getHashtags().length);
+        HashMap<String, Integer> result = new HashMap<>(capacity * 4 / 3 + 1);
+        for (ShardResult shard : shards) {
+            String[] hashtags = shard.getHashtags();
+            int[] counts = shard.getCounts();
+            for (int i = 0; i < hashtags.length; i++)
+                result.merge(hashtags[i], counts[i], Integer::sum);
+        }
+        return result;
+    }
+
+    /**
+     * @param shards Results of all shards, in file order.
+     * @return All scores in stable ascending order, with the row of every score in the whole file.
+     */
+    public static MergedScores mergeScores(List<ShardResult> shards) {
+        int k = shards.size();
+        int[] rowOffsets = new int[k];
+        int total = 0;
+        for (int r = 0; r < k; r++) {
+            rowOffsets[r] = total;
+            total += shards.get(r).size();
+        }
+
+        // Heap of the runs that are not exhausted, heads[r] is the score at the cursor of run r.
+        int[] cursors = new int[k];
+        int[] heads = new int[k];
+        int[] heap = new int[k];
+        int size = 0;
+        for (int r = 0; r < k; r++) {
+            if (shards.get(r).size() == 0) continue;
+            heads[r] = shards.get(r).getSortedScores()[0];
+            heap[size++] = r;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(heap, size, heads, i);
+
+        int[] scores = new int[total];
+        int[] order = new int[total];
+        for (int out = 0; out < total; out++) {
+            int r = heap[0];
+            ShardResult run = shards.get(r);
+            scores[out] = heads[r];
+            order[out] = rowOffsets[r] + run.getOrder()[cursors[r]];
+            if (++cursors[r] < run.size()) {
+                heads[r] = run.getSortedScores()[cursors[r]];
+            } else {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, heads, 0);
+        }
+        return new MergedScores(scores, order);
+    }
+
+    /**
+     * Run a goes before run b if its head is lower, or equal and it comes first in the file.
+     */
+    private static boolean before(int a, int b, int[] heads) {
+        return heads[a] < heads[b] || (heads[a] == heads[b] && a < b);
+    }
+
+    private static void siftDown(int[] heap, int size, int[] heads, int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && before(heap[left], heap[smallest], heads)) smallest = left;
+            if (right < size && before(heap[right], heap[smallest], heads)) smallest = right;
+            if (smallest == position) return;
+            int run = heap[position];
+            heap[position] = heap[smallest];
+            heap[smallest] = run;
+            position = smallest;
+        }
+    }
+
+    /**
+     * Scores of a whole file in stable ascending order.
+     */
+    public static class MergedScores {
+        private final int[] scores;
+        private final int[] order;
+
+        MergedScores(int[] scores, int[] order) {
+            this.scores = scores;
+            this.order = order;
+        }
+
+        /**
+         * @return All scores in ascending order.
+         */
+        public int[] getScores() {
+            return scores;
+        }
+
+        /**
+         * @return Row in the file of every sorted score, like SentimentScores.getOrder().
+         */
+        public int[] getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package be.vub.parallellism.solutions.sharding;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.SentimentScores;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Partial result of one shard, as sent from a ShardWorker to the coordinator.
+ *
+ * Layout:
+ *  header   : magic (int), version (int), shard (int), number of tweets (int), read, count and score nanos (3 longs)
+ *  hashtags : number of hashtags (int), for every hashtag its UTF-8 byte length (int), bytes and count (int)
+ *  scores   : the scores of the shard in ascending order (ints), then the shard-local row of every score (ints)
+ * Only hashtags with a count above 0 are sent. Equal scores keep the row order, so the run is a stable sort of the shard.
+ */
+public class ShardResult {
+    private static final int MAGIC = 0x54575348; // "TWSH"
+    private static final int VERSION = 1;
+
+    private final int shard;
+    private final String[] hashtags;
+    private final int[] counts;
+    private final int[] sortedScores;
+    private final int[] order;
+    private final long readNanos;
+    private final long countNanos;
+    private final long scoreNanos;
+
+    private ShardResult(int shard, String[] hashtags, int[] counts, int[] sortedScores, int[] order,
+                        long readNanos, long countNanos, long scoreNanos) {
+        this.shard = shard;
+        this.hashtags = hashtags;
+        this.counts = counts;
+        this.sortedScores = sortedScores;
+        this.order = order;
+        this.readNanos = readNanos;
+        this.countNanos = countNanos;
+        this.scoreNanos = scoreNanos;
+    }
+
+    /**
+     * Collect the result of a shard.
+     * @param shard Index of the shard.
+     * @param dictionary Dictionary the hashtags of the shard were encoded in.
+     * @param counts Count of every hashtag id.
+     * @param scores Scores of the tweets of the shard, sorted (SentimentScores.getOrder() is set).
+     * @param readNanos Time to read the shard.
+     * @param countNanos Time to count the hashtags.
+     * @param scoreNanos Time to score and sort.
+     * @return The partial result.
+     */
+    public static ShardResult of(int shard, HashtagDictionary dictionary, int[] counts, SentimentScores scores,
+                                 long readNanos, long countNanos, long scoreNanos) {
+        int used = 0;
+        for (int count : counts)
+            if (count > 0) used++;
+        String[] names = new String[used];
+        int[] usedCounts = new int[used];
+        for (int id = 0, j = 0; id < counts.length; id++) {
+            if (counts[id] == 0) continue;
+            names[j] = dictionary.nameOf(id);
+            usedCounts[j++] = counts[id];
+        }
+
+        int[] order = scores.getOrder();
+        int[] sortedScores = new int[order.length];
+        for (int k = 0; k < order.length; k++)
+            sortedScores[k] = scores.getScore(order[k]);
+        return new ShardResult(shard, names, usedCounts, sortedScores, order, readNanos, countNanos, scoreNanos);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(shard);
+        out.writeInt(sortedScores.length);
+        out.writeLong(readNanos);
+        out.writeLong(countNanos);
+        out.writeLong(scoreNanos);
+
+        out.writeInt(hashtags.length);
+        for (int i = 0; i < hashtags.length; i++) {
+            byte[] bytes = hashtags[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt(counts[i]);
+        }
+
+        writeInts(out, sortedScores);
+        writeInts(out, order);
+        out.flush();
+    }
+
+    /**
+     * @param in Stream positioned at a result written with write.
+     * @return The result.
+     * @throws IOException If the stream ends early or does not hold a result.
+     */
+    public static ShardResult read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            throw new IOException("Not a shard result.");
+        int shard = in.readInt();
+        int tweets = in.readInt();
+        long readNanos = in.readLong();
+        long countNanos = in.readLong();
+        long scoreNanos = in.readLong();
+
+        int used = in.readInt();
+        String[] hashtags = new String[used];
+        int[] counts = new int[used];
+        for (int i = 0; i < used; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            hashtags[i] = new String(bytes, StandardCharsets.UTF_8);
+            counts[i] = in.readInt();
+        }
+
+        int[] sortedScores = readInts(in, tweets);
+        int[] order = readInts(in, tweets);
+        return new ShardResult(shard, hashtags, counts, sortedScores, order, readNanos, countNanos, scoreNanos);
+    }
+
+    /**
+     * Write an int[] in one bulk copy instead of one writeInt per element.
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        buffer.asIntBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static int[] readInts(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length * 4];
+        in.readFully(bytes);
+        int[] values = new int[length];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * @return Number of tweets in the shard.
+     */
+    public int size() {
+        return sortedScores.length;
+    }
+
+    /**
+     * @return Hashtags used in the shard, getCounts()[i] is the count of hashtag i.
+     */
+    public String[] getHashtags() {
+        return hashtags;
+    }
+
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @return Scores of the shard in ascending order.
+     */
+    public int[] getSortedScores() {
+        return sortedScores;
+    }
+
+    /**
+     * @return Shard-local row of every sorted score.
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    public long getCountNanos() {
+        return countNanos;
+    }
+
+    public long getScoreNanos() {
+        return scoreNanos;
+    }
+}
@@ -0,0 +1,70 @@
+package be.vub.parallellism.solutions.sharding;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.ParallelTweetReader;
+import be.vub.parallellism.data.readers.WordListReader;
+import be.vub.parallellism.solutions.tasks.CountHashtagIdsTask;
+import be.vub.parallellism.solutions.tasks.ScoreSentimentsTask;
+import be.vub.parallellism.solutions.tasks.SortSentimentScoresTask;
+import be.vub.parallellism.solutions.tasks.TaskConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Worker process of ShardedAnalyser: analyses one shard of a csv file and writes its ShardResult to stdout.
+ *
+ * The shard is read with ParallelTweetReader, its hashtags are counted with CountHashtagIdsTask and its tweets are
+ * scored with ScoreSentimentsTask and sorted with SortSentimentScoresTask, all on a ForkJoinPool of its own.
+ * Stdout is the pipe to the coordinator, so anything else the worker prints goes to stderr.
+ *
+ * Arguments: csv file, offset of the first record, offset after the last record, shard index, threads,
+ * positive word list, negative word list, "true" to score with the ASCII fast path.
+ */
+public class ShardWorker {
+    // Sequential threshold of the tasks.
+    public static int threshold = 3500;
+
+    public static void main(String[] args) {
+        PrintStream pipe = System.out;
+        System.setOut(System.err);
+
+        String file = args[0];
+        long lo = Long.parseLong(args[1]);
+        long hi = Long.parseLong(args[2]);
+        int shard = Integer.parseInt(args[3]);
+        int threads = Integer.parseInt(args[4]);
+        boolean ascii = Boolean.parseBoolean(args[7]);
+
+        try {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            TaskConfig config = new TaskConfig(threshold, ascii);
+            SentimentLexicon lexicon = WordListReader.compile(args[5], args[6]);
+            HashtagDictionary dictionary = new HashtagDictionary();
+
+            long start = System.nanoTime();
+            Tweet[] tweets = ParallelTweetReader.readShard(file, lo, hi, pool, dictionary).toArray(new Tweet[0]);
+            long read = System.nanoTime();
+            int[] counts = pool.invoke(new CountHashtagIdsTask(tweets, dictionary.size(), config));
+            long counted = System.nanoTime();
+            ScoreSentimentsTask scoreTask = new ScoreSentimentsTask(tweets, lexicon, config);
+            pool.invoke(scoreTask);
+            pool.invoke(new SortSentimentScoresTask(scoreTask.getResult(), config));
+            long scored = System.nanoTime();
+
+            ShardResult result = ShardResult.of(shard, dictionary, counts, scoreTask.getResult(),
+                    read - start, counted - read, scored - counted);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(pipe, 1 << 16))) {
+                result.write(out);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.TimeBuckets;
+import be.vub.parallellism.data.models.TimeGranularity;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.models.TweetTimes;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to aggregate tweets per time bucket: tweet count, mean sentiment and hashtag counts.
+ * Fase 3 - Time buckets
+ *
+ * Implementation using ForkJoin-Framework: the tweets are grouped by bucket with Partitions, and the buckets are
+ * divided over the leaves, so every bucket sums its scores and counts its hashtags on its own and
+ * nothing has to be merged.
+ * Times must have been parsed first, see ParseTweetTimesTask. Tweets outside [from, to) are skipped.
+ */
+public class AggregateTimeBucketsTask extends RecursiveTask<TimeBuckets> {
+    // Most buckets in one aggregation, every leaf of the grouping pass may need an array of this size.
+    static final int MAX_BUCKETS = 1 << 22;
+
+    private TaskConfig config;
+    private Tweet[] tweets;
+    private TweetTimes times;
+    private int[] scores;
+    private HashtagDictionary dictionary;
+    private TimeGranularity granularity;
+    private long origin;
+    private int buckets;
+
+    /**
+     * Constructor to initialize with tweets, their times and sequential threshold.
+     * @param tweets Array of Tweet-objects to aggregate.
+     * @param times Parsed times of the tweets.
+     * @param scores Sentiment score of every tweet (SentimentScores.getScores()), or null to skip sentiment.
+     * @param dictionary Dictionary the hashtags are encoded in, tweets that were not encoded are added to it.
+     * @param from Start of the aggregated range in seconds since the epoch, rounded down to the granularity.
+     * @param to End of the aggregated range (exclusive) in seconds since the epoch.
+     * @param granularity Width of a bucket.
+     * @param threshold Sequential threshold : lower boundary to start aggregating instead of dividing work.
+     */
+    public AggregateTimeBucketsTask(Tweet[] tweets, TweetTimes times, int[] scores, HashtagDictionary dictionary,
+                                    long from, long to, TimeGranularity granularity, int threshold) {
+        this(tweets, times, scores, dictionary, from, to, granularity, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, their times and the configuration of this invocation.
+     * @param config Configuration with the sequential threshold.
+     * @see #AggregateTimeBucketsTask(Tweet[], TweetTimes, int[], HashtagDictionary, long, long, TimeGranularity, int)
+     */
+    public AggregateTimeBucketsTask(Tweet[] tweets, TweetTimes times, int[] scores, HashtagDictionary dictionary,
+                                    long from, long to, TimeGranularity granularity, TaskConfig config) {
+        this.tweets = tweets;
+        this.times = times;
+        this.scores = scores;
+        this.dictionary = dictionary;
+        this.granularity = granularity;
+        this.config = config;
+        this.origin = granularity.floor(from);
+
+        long width = granularity.getSeconds();
+        long buckets = Math.max(0, (to - origin + width - 1) / width);
+        if (buckets > MAX_BUCKETS)
+            throw new IllegalArgumentException(buckets + " buckets of " + granularity + ", at most " + MAX_BUCKETS + " are supported.");
+        this.buckets = (int) buckets;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return Aggregates per bucket.
+     */
+    @Override
+    protected TimeBuckets compute() {
+        long width = granularity.getSeconds();
+        Partitions partitions = Partitions.group(tweets.length, buckets, (int i) -> {
+            long time = times.get(i);
+            long b = time == TweetTimes.MISSING || time < origin ? -1 : (time - origin) / width;
+            return b < buckets ? (int) b : -1;
+        }, config);
+
+        long[] scoreSums = scores == null ? null : new long[buckets];
+        int[][] hashtagIds = new int[buckets][];
+        int[][] hashtagCounts = new int[buckets][];
+        partitions.forEach((int b) -> aggregateBucket(partitions, b, scoreSums, hashtagIds, hashtagCounts));
+
+        long[] tweetCounts = new long[buckets];
+        for (int b = 0; b < buckets; b++)
+            tweetCounts[b] = partitions.size(b);
+        return new TimeBuckets(granularity, origin, tweetCounts, scoreSums, hashtagIds, hashtagCounts, dictionary);
+    }
+
+    /**
+     * Sum the scores and count the hashtags of bucket b.
+     */
+    private void aggregateBucket(Partitions partitions, int b, long[] scoreSums, int[][] hashtagIds, int[][] hashtagCounts) {
+        int[] members = partitions.members;
+        if (scoreSums != null)
+            for (int m = partitions.offsets[b]; m < partitions.offsets[b + 1]; m++)
+                scoreSums[b] += scores[members[m]];
+
+        Scratch scratch = Scratch.get();
+        int[] counts = scratch.counts(dictionary.size());
+        int touched = 0;
+        for (int m = partitions.offsets[b]; m < partitions.offsets[b + 1]; m++) {
+            Tweet tweet = tweets[members[m]];
+            int[] ids = tweet.getHashtagIds();
+            if (ids == null) {
+                for (String hashtag : tweet.getHashtags()) {
+                    int id = dictionary.idOf(hashtag);
+                    counts = scratch.counts(id + 1);
+                    if (counts[id]++ == 0) scratch.touch(touched++, id);
+                }
+                continue;
+            }
+            for (int id : ids)
+                if (counts[id]++ == 0) scratch.touch(touched++, id);
+        }
+
+        int[][] sorted = scratch.drainSorted(touched, touched);
+        hashtagIds[b] = sorted[0];
+        hashtagCounts[b] = sorted[1];
+    }
+}
@@ -0,0 +1,102 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.lexicon.AsciiSentimentScorer;
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.SentimentScorer;
+import be.vub.parallellism.data.models.OffHeapTweetStore;
+import be.vub.parallellism.data.models.Utf8Chars;
+import be.vub.parallellism.data.models.Utf8Column;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to calculate the sentiment value of each tweet in an OffHeapTweetStore.
+ * Fase 2 over OffHeapTweetStore
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * Each leaf decodes the UTF-8 text of its tweets straight from off-heap memory into one reusable Utf8Chars,
+ * so no String is created, and writes the scores to an int[] indexed like the store.
+ * With TaskConfig.isAsciiFastPath(), the bytes are scored in place by AsciiSentimentScorer instead.
+ */
+public class CalculateSentimentScoreOffHeapTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private OffHeapTweetStore store;
+    private int lo;
+    private int hi;
+    private int[] scores;
+    private SentimentLexicon lexicon;
+
+    /**
+     * Constructor to initialize with a store, a lexicon and sequential threshold.
+     * @param store OffHeapTweetStore with the tweets to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public CalculateSentimentScoreOffHeapTask(OffHeapTweetStore store, SentimentLexicon lexicon, int threshold) {
+        this(store, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with a store, a lexicon and the configuration of this invocation.
+     * @param store OffHeapTweetStore with the tweets to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CalculateSentimentScoreOffHeapTask(OffHeapTweetStore store, SentimentLexicon lexicon, TaskConfig config) {
+        this(store, 0, store.size(), new int[store.size()], lexicon, config);
+    }
+
+    private CalculateSentimentScoreOffHeapTask(OffHeapTweetStore store, int lo, int hi, int[] scores,
+                                               SentimentLexicon lexicon, TaskConfig config) {
+        this.store = store;
+        this.lo = lo;
+        this.hi = hi;
+        this.scores = scores;
+        this.lexicon = lexicon;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        if ((hi-lo) <= config.getThreshold()) {
+            Utf8Column texts = store.getTweetTexts();
+            if (config.isAsciiFastPath()) {
+                for (int i = lo; i < hi; i++) {
+                    if (texts.getLength(i) <= 0) continue;
+                    long handle = texts.getHandle(i);
+                    int offset = Utf8Column.offsetOf(handle);
+                    scores[i] = AsciiSentimentScorer.score(texts.chunkOf(handle), offset, offset + texts.getLength(i), lexicon);
+                }
+                return;
+            }
+            Utf8Chars text = new Utf8Chars();
+            for (int i = lo; i < hi; i++) {
+                texts.decode(i, text);
+                scores[i] = SentimentScorer.scoreUnicode(text, 0, text.length(), lexicon);
+            }
+        }
+        else {
+            CalculateSentimentScoreOffHeapTask left =
+                    new CalculateSentimentScoreOffHeapTask(store, lo, (hi+lo)/2, scores, lexicon, config);
+            CalculateSentimentScoreOffHeapTask right =
+                    new CalculateSentimentScoreOffHeapTask(store, (hi+lo)/2, hi, scores, lexicon, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Public method to access result.
+     * @return int[] with the score of tweet i of the store at index i.
+     */
+    public int[] getScores() {
+        return scores;
+    }
+}
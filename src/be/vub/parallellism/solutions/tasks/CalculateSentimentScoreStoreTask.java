@@ -0,0 +1,85 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.lexicon.SentimentScorer;
+import be.vub.parallellism.data.models.TweetStore;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to calculate the sentiment value of each tweet in a columnar TweetStore.
+ * Fase 2 over TweetStore
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * Each thread scores the packed text of its tweets in place and writes the scores to an int[] indexed like the store.
+ */
+public class CalculateSentimentScoreStoreTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private TweetStore store;
+    private int lo;
+    private int hi;
+    private int[] scores;
+    private SentimentLexicon lexicon;
+
+    /**
+     * Constructor to initialize with a store, a lexicon and sequential threshold.
+     * @param store TweetStore with the tweets to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public CalculateSentimentScoreStoreTask(TweetStore store, SentimentLexicon lexicon, int threshold) {
+        this(store, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with a store, a lexicon and the configuration of this invocation.
+     * @param store TweetStore with the tweets to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CalculateSentimentScoreStoreTask(TweetStore store, SentimentLexicon lexicon, TaskConfig config) {
+        this(store, 0, store.size(), new int[store.size()], lexicon, config);
+    }
+
+    private CalculateSentimentScoreStoreTask(TweetStore store, int lo, int hi, int[] scores, SentimentLexicon lexicon,
+                                             TaskConfig config) {
+        this.store = store;
+        this.lo = lo;
+        this.hi = hi;
+        this.scores = scores;
+        this.lexicon = lexicon;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        if ((hi-lo) <= config.getThreshold()) {
+            String text = store.getText();
+            for (int i = lo; i < hi; i++)
+                scores[i] = SentimentScorer.score(text, store.getTextStart(i), store.getTextEnd(i), lexicon, config.isAsciiFastPath());
+        }
+        else {
+            CalculateSentimentScoreStoreTask left =
+                    new CalculateSentimentScoreStoreTask(store, lo, (hi+lo)/2, scores, lexicon, config);
+            CalculateSentimentScoreStoreTask right =
+                    new CalculateSentimentScoreStoreTask(store, (hi+lo)/2, hi, scores, lexicon, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Public method to access result.
+     * @return int[] with the score of tweet i of the store at index i.
+     */
+    public int[] getScores() {
+        return scores;
+    }
+}
@@ -1,5 +1,6 @@
 package be.vub.parallellism.solutions.tasks;
 
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
 import be.vub.parallellism.data.models.Pair;
 import be.vub.parallellism.data.models.Tweet;
 
@@ -16,7 +17,8 @@ import java.util.concurrent.RecursiveAction;
  * Implementation using ForkJoin-Framework with a RecursiveAction.
  */
 public class CalculateSentimentScoreTask extends RecursiveAction {
-    static int SEQ_THRESHOLD;
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
 
     private Tweet[] tweets;
     private int lo;
@@ -24,25 +26,52 @@ public class CalculateSentimentScoreTask extends RecursiveAction {
     private Pair<Tweet, Integer>[] scores;
     private HashSet<String> positiveWords;
     private HashSet<String> negativeWords;
+    // If not null, tweets are scored in place with the lexicon instead of with the split based method.
+    private SentimentLexicon lexicon;
 
     public CalculateSentimentScoreTask(Tweet[] tweets, HashSet<String> positiveWords, HashSet<String> negativeWords, int threshold)  {
-        this(tweets, 0, tweets.length, new Pair[tweets.length], positiveWords, negativeWords);
-        SEQ_THRESHOLD = threshold;
+        this(tweets, positiveWords, negativeWords, new TaskConfig(threshold));
+    }
+
+    public CalculateSentimentScoreTask(Tweet[] tweets, HashSet<String> positiveWords, HashSet<String> negativeWords, TaskConfig config)  {
+        this(tweets, 0, tweets.length, new Pair[tweets.length], positiveWords, negativeWords, null, config);
     }
 
     public CalculateSentimentScoreTask(Tweet[] tweets, HashSet<String> positiveWords, HashSet<String> negativeWords)  {
-        this(tweets, 0, tweets.length, new Pair[tweets.length], positiveWords, negativeWords);
-        SEQ_THRESHOLD = 2500;
+        this(tweets, positiveWords, negativeWords, 2500);
+    }
+
+    /**
+     * Constructor to score tweets in place with a SentimentLexicon instead of splitting the text.
+     * @param tweets Array of Tweet-objects to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public CalculateSentimentScoreTask(Tweet[] tweets, SentimentLexicon lexicon, int threshold)  {
+        this(tweets, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to score tweets in place with a SentimentLexicon and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CalculateSentimentScoreTask(Tweet[] tweets, SentimentLexicon lexicon, TaskConfig config)  {
+        this(tweets, 0, tweets.length, new Pair[tweets.length], null, null, lexicon, config);
     }
 
     private CalculateSentimentScoreTask(Tweet[] tweets, int lo, int hi, Pair<Tweet, Integer>[] scores,
-                                       HashSet<String> positiveWords, HashSet<String> negativeWords) {
+                                       HashSet<String> positiveWords, HashSet<String> negativeWords, SentimentLexicon lexicon,
+                                       TaskConfig config) {
         this.tweets = tweets;
         this.lo = lo;
         this.hi = hi;
         this.scores = scores;
         this.positiveWords = positiveWords;
         this.negativeWords = negativeWords;
+        this.lexicon = lexicon;
+        this.config = config;
     }
 
     /**
@@ -51,7 +80,7 @@ public class CalculateSentimentScoreTask extends RecursiveAction {
     @Override
     protected void compute() {
         // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, calculate sentiment for current sub-array.
-        if ((hi-lo) <= SEQ_THRESHOLD)
+        if ((hi-lo) <= config.getThreshold())
             calculateSentimentScore();
         // Else divide work.
         else
@@ -63,9 +92,9 @@ public class CalculateSentimentScoreTask extends RecursiveAction {
      */
     private void calculateRecursiveTasks() {
         CalculateSentimentScoreTask left =
-                new CalculateSentimentScoreTask(tweets, lo, (hi+lo)/2, scores, positiveWords, negativeWords);
+                new CalculateSentimentScoreTask(tweets, lo, (hi+lo)/2, scores, positiveWords, negativeWords, lexicon, config);
         CalculateSentimentScoreTask right =
-                new CalculateSentimentScoreTask(tweets, (hi+lo)/2, hi, scores, positiveWords, negativeWords);
+                new CalculateSentimentScoreTask(tweets, (hi+lo)/2, hi, scores, positiveWords, negativeWords, lexicon, config);
 
         left.fork(); // Fork 1 Task first to start thread in background.
         right.compute(); // Run other Task in current thread.
@@ -76,6 +105,11 @@ public class CalculateSentimentScoreTask extends RecursiveAction {
      * Sequentially calculate the sentiment of each tweet in the range and store it in the same location in the scores array.
      */
     private void calculateSentimentScore()  {
+        if (lexicon != null) {
+            for (int i = lo; i < hi; i++)
+                scores[i] = new Pair<>(tweets[i], tweets[i].calculateSentimentScore(lexicon, config.isAsciiFastPath()));
+            return;
+        }
         for (int i = lo; i < hi; i++) {
             try {
                 scores[i] = new Pair<>(tweets[i], tweets[i].calculateSentimentScore(positiveWords, negativeWords));
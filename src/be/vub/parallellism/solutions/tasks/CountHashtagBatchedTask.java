@@ -0,0 +1,128 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class to count how often hashtags are used in an array of Tweet-objects with dictionary encoded hashtags.
+ * Fase 1 - Implementation 4
+ *
+ * Implementation using ForkJoin-framework with a RecursiveAction.
+ * Each thread contains a reference to the same AtomicLongArray, indexed by hashtag id.
+ * Instead of one atomic increment per hashtag (like CountHashtagConcurrentTask), every worker thread counts
+ * in its own small buffer and flushes it in batches with one atomic add per distinct hashtag.
+ * Hot hashtags (#news, #MAGA, ...) are then added once per batch instead of once per tweet,
+ * and no objects are allocated while counting.
+ */
+public class CountHashtagBatchedTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    // One buffer per worker thread, reused by every task that runs on that thread.
+    private static final ThreadLocal<CountBuffer> buffers = ThreadLocal.withInitial(CountBuffer::new);
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private AtomicLongArray hashtagCount;
+
+    /**
+     * Constructor to initialize with tweets, the shared counts and sequential threshold.
+     * @param tweets Array of Tweet-objects read with a HashtagDictionary, see Tweet.getHashtagIds().
+     * @param hashtagCount Counts indexed by hashtag id, length HashtagDictionary.size(), shared by all threads.
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public CountHashtagBatchedTask(Tweet[] tweets, AtomicLongArray hashtagCount, int threshold) {
+        this(tweets, hashtagCount, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, the shared counts and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects read with a HashtagDictionary, see Tweet.getHashtagIds().
+     * @param hashtagCount Counts indexed by hashtag id, length HashtagDictionary.size(), shared by all threads.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagBatchedTask(Tweet[] tweets, AtomicLongArray hashtagCount, TaskConfig config) {
+        this(tweets, 0, tweets.length, hashtagCount, config);
+    }
+
+    private CountHashtagBatchedTask(Tweet[] tweets, int lo, int hi, AtomicLongArray hashtagCount, TaskConfig config) {
+        this.tweets = tweets;
+        this.lo = lo;
+        this.hi = hi;
+        this.hashtagCount = hashtagCount;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, perform sequential hashtag count.
+        if ((hi - lo) <= config.getThreshold()) {
+            CountBuffer buffer = buffers.get();
+            for (int i = lo; i < hi; i++)
+                for (int id : tweets[i].getHashtagIds())
+                    buffer.add(id, hashtagCount);
+            // Flush at the end of every leaf, so all counts are in the shared array when the root task completes.
+            buffer.flush(hashtagCount);
+        }
+        // Else divide work and run threads.
+        else {
+            CountHashtagBatchedTask left = new CountHashtagBatchedTask(tweets, lo, (hi+lo)/2, hashtagCount, config);
+            CountHashtagBatchedTask right = new CountHashtagBatchedTask(tweets, (hi+lo)/2, hi, hashtagCount, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Small open addressing table from hashtag id to local count.
+     * Flushed to the shared counts when it is half full, so probe sequences stay short.
+     */
+    private static class CountBuffer {
+        private static final int CAPACITY = 4096;
+        private static final int EMPTY = -1;
+
+        private final int[] ids = new int[CAPACITY];
+        private final int[] counts = new int[CAPACITY];
+        // Slots in use, to flush and clear only those.
+        private final int[] used = new int[CAPACITY / 2];
+        private int size;
+
+        CountBuffer() {
+            Arrays.fill(ids, EMPTY);
+        }
+
+        void add(int id, AtomicLongArray target) {
+            int slot = (id * 0x9E3779B9) >>> 20; // Top 12 bits: index in a table of 4096 slots.
+            while (ids[slot] != EMPTY && ids[slot] != id)
+                slot = (slot + 1) & (CAPACITY - 1);
+
+            if (ids[slot] == EMPTY) {
+                ids[slot] = id;
+                used[size++] = slot;
+            }
+            counts[slot]++;
+
+            if (size == used.length)
+                flush(target);
+        }
+
+        void flush(AtomicLongArray target) {
+            for (int i = 0; i < size; i++) {
+                int slot = used[i];
+                target.getAndAdd(ids[slot], counts[slot]);
+                ids[slot] = EMPTY;
+                counts[slot] = 0;
+            }
+            size = 0;
+        }
+    }
+}
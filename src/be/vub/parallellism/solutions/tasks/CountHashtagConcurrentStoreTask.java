@@ -0,0 +1,70 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.TweetStore;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class to count how often hashtags are used in a columnar TweetStore.
+ * Fase 1 - Implementation 2 over TweetStore
+ *
+ * Implementation using ForkJoin-framework with a RecursiveAction.
+ * Each thread increments the same AtomicIntegerArray, indexed by hashtag id.
+ */
+public class CountHashtagConcurrentStoreTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private TweetStore store;
+    private int lo;
+    private int hi;
+    private AtomicIntegerArray hashtagCount;
+
+    /**
+     * Constructor to initialize with a store, the shared counts and sequential threshold.
+     * @param store TweetStore used to count hashtags.
+     * @param hashtagCount Counts indexed by hashtag id, length store.getHashtagCount(), shared by all threads.
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public CountHashtagConcurrentStoreTask(TweetStore store, AtomicIntegerArray hashtagCount, int threshold) {
+        this(store, hashtagCount, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with a store, the shared counts and the configuration of this invocation.
+     * @param store TweetStore used to count hashtags.
+     * @param hashtagCount Counts indexed by hashtag id, length store.getHashtagCount(), shared by all threads.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagConcurrentStoreTask(TweetStore store, AtomicIntegerArray hashtagCount, TaskConfig config) {
+        this(store, 0, store.size(), hashtagCount, config);
+    }
+
+    private CountHashtagConcurrentStoreTask(TweetStore store, int lo, int hi, AtomicIntegerArray hashtagCount, TaskConfig config) {
+        this.store = store;
+        this.lo = lo;
+        this.hi = hi;
+        this.hashtagCount = hashtagCount;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            for (int j = store.getHashtagStart(lo); j < store.getHashtagEnd(hi - 1); j++)
+                hashtagCount.incrementAndGet(store.getHashtagId(j));
+        }
+        else {
+            CountHashtagConcurrentStoreTask left = new CountHashtagConcurrentStoreTask(store, lo, (hi+lo)/2, hashtagCount, config);
+            CountHashtagConcurrentStoreTask right = new CountHashtagConcurrentStoreTask(store, (hi+lo)/2, hi, hashtagCount, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+}
@@ -16,7 +16,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Each thread contains a reference to the same ConcurrentHashMap.
  */
 public class CountHashtagConcurrentTask extends RecursiveAction {
-    static int SEQ_THRESHOLD;
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
 
     private Tweet[] tweets;
     private int lo;
@@ -31,8 +32,17 @@ public class CountHashtagConcurrentTask extends RecursiveAction {
      * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
      */
     public CountHashtagConcurrentTask(Tweet[] tweets, ConcurrentHashMap<String, AtomicInteger> hashtagCount, int threshold) {
-        this(tweets, 0, tweets.length, hashtagCount);
-        SEQ_THRESHOLD = threshold;
+        this(tweets, hashtagCount, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, the ConcurrentHashMap and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects used to count hashtags.
+     * @param hashtagCount Reference to ConcurrentHashMap shared by all threads.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagConcurrentTask(Tweet[] tweets, ConcurrentHashMap<String, AtomicInteger> hashtagCount, TaskConfig config) {
+        this(tweets, 0, tweets.length, hashtagCount, config);
     }
 
     /**
@@ -41,8 +51,7 @@ public class CountHashtagConcurrentTask extends RecursiveAction {
      * @param hashtagCount Reference to ConcurrentHashMap shared by all threads.
      */
     public CountHashtagConcurrentTask(Tweet[] tweets, ConcurrentHashMap<String, AtomicInteger> hashtagCount) {
-        this(tweets, 0, tweets.length, hashtagCount);
-        SEQ_THRESHOLD = 5000;
+        this(tweets, hashtagCount, 5000);
     }
 
     /**
@@ -51,12 +60,15 @@ public class CountHashtagConcurrentTask extends RecursiveAction {
      * @param lo Lower boundary of work for this thread.
      * @param hi Upper boundary of work for this thread.
      * @param hashtagCount Reference to ConcurrentHashMap shared by all threads.
+     * @param config Configuration shared by all subtasks.
      */
-    private CountHashtagConcurrentTask(Tweet[] tweets, int lo, int hi, ConcurrentHashMap<String, AtomicInteger> hashtagCount) {
+    private CountHashtagConcurrentTask(Tweet[] tweets, int lo, int hi, ConcurrentHashMap<String, AtomicInteger> hashtagCount,
+                                       TaskConfig config) {
         this.tweets = tweets;
         this.lo = lo;
         this.hi = hi;
         this.hashtagCount = hashtagCount;
+        this.config = config;
     }
 
     /**
@@ -65,7 +77,7 @@ public class CountHashtagConcurrentTask extends RecursiveAction {
     @Override
     protected void compute() {
         // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, perform sequential hashtag count.
-        if ((hi - lo) <= SEQ_THRESHOLD) {
+        if ((hi - lo) <= config.getThreshold()) {
             for (int i = lo; i < hi; i++) {
                 for (String s : tweets[i].getHashtags()) {
                     countHashtags(s);
@@ -74,8 +86,8 @@ public class CountHashtagConcurrentTask extends RecursiveAction {
         }
         // Else divide work and run threads.
         else {
-            CountHashtagConcurrentTask left = new CountHashtagConcurrentTask(tweets, lo, (hi+lo)/2, hashtagCount);
-            CountHashtagConcurrentTask right = new CountHashtagConcurrentTask(tweets, (hi+lo)/2, hi, hashtagCount);
+            CountHashtagConcurrentTask left = new CountHashtagConcurrentTask(tweets, lo, (hi+lo)/2, hashtagCount, config);
+            CountHashtagConcurrentTask right = new CountHashtagConcurrentTask(tweets, (hi+lo)/2, hi, hashtagCount, config);
 
             left.fork(); // Fork 1 Task first to start thread in background.
             right.compute(); // Run other Task in current thread.
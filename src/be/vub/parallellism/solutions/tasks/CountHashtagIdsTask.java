@@ -0,0 +1,95 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to count how often hashtags are used in an array of Tweet-objects with dictionary encoded hashtags.
+ * Fase 1 - Implementation 3
+ *
+ * Implementation using ForkJoin-framework with a RecursiveTask.
+ * Hashtags are counted by id in a primitive int[] histogram, so the hot loop does no hashing, boxing or resizing.
+ * A forked task that was not stolen is run in the histogram of its parent, so histograms are only allocated
+ * for tasks that run on another thread. Those are added element-wise at join.
+ * Use HashtagDictionary.toMap to translate the result back to hashtags.
+ */
+public class CountHashtagIdsTask extends RecursiveTask<int[]> {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private int hashtags;
+    private int[] counts;
+
+    /**
+     * Constructor to initialize with tweets and sequential threshold.
+     * @param tweets Array of Tweet-objects read with a HashtagDictionary, see Tweet.getHashtagIds().
+     * @param hashtags Number of distinct hashtags (HashtagDictionary.size()).
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public CountHashtagIdsTask(Tweet[] tweets, int hashtags, int threshold) {
+        this(tweets, hashtags, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects read with a HashtagDictionary, see Tweet.getHashtagIds().
+     * @param hashtags Number of distinct hashtags (HashtagDictionary.size()).
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagIdsTask(Tweet[] tweets, int hashtags, TaskConfig config) {
+        this(tweets, 0, tweets.length, hashtags, null, config);
+    }
+
+    /**
+     * Private constructor to initialize actual work.
+     * @param counts Histogram to count in, or null to allocate one when the task runs.
+     */
+    private CountHashtagIdsTask(Tweet[] tweets, int lo, int hi, int hashtags, int[] counts, TaskConfig config) {
+        this.tweets = tweets;
+        this.lo = lo;
+        this.hi = hi;
+        this.hashtags = hashtags;
+        this.counts = counts;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return int[] with the count of every hashtag id in the current subarray.
+     */
+    @Override
+    protected int[] compute() {
+        if (counts == null)
+            counts = new int[hashtags];
+
+        // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, perform sequential hashtag count.
+        if ((hi - lo) <= config.getThreshold()) {
+            for (int i = lo; i < hi; i++)
+                for (int id : tweets[i].getHashtagIds())
+                    counts[id]++;
+            return counts;
+        }
+
+        // Else divide work, the right half counts in the same histogram.
+        CountHashtagIdsTask left = new CountHashtagIdsTask(tweets, lo, (hi+lo)/2, hashtags, null, config);
+        CountHashtagIdsTask right = new CountHashtagIdsTask(tweets, (hi+lo)/2, hi, hashtags, counts, config);
+
+        left.fork(); // Fork 1 Task first to start thread in background.
+        right.compute(); // Run other Task in current thread.
+        if (left.tryUnfork()) {
+            // Nobody took the left half: count it in this histogram as well.
+            left.counts = counts;
+            left.compute();
+        } else {
+            // Combine both histograms element-wise.
+            int[] leftCounts = left.join();
+            for (int id = 0; id < counts.length; id++)
+                counts[id] += leftCounts[id];
+        }
+        return counts;
+    }
+}
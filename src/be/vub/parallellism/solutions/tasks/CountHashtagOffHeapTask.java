@@ -0,0 +1,84 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.OffHeapTweetStore;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to count how often hashtags are used in an OffHeapTweetStore.
+ * Fase 1 - Implementation 1 over OffHeapTweetStore
+ *
+ * Implementation using ForkJoin-framework with a RecursiveTask.
+ * Each thread reads the hashtag ids of its tweets straight from the off-heap CSR buffer
+ * and returns an int[] indexed by hashtag id. Histograms are combined by adding them element-wise.
+ */
+public class CountHashtagOffHeapTask extends RecursiveTask<int[]> {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private OffHeapTweetStore store;
+    private int lo;
+    private int hi;
+    // Length of the histograms: every id in the store is below it.
+    private int hashtags;
+
+    /**
+     * Constructor to initialize with a store and sequential threshold.
+     * @param store OffHeapTweetStore used to count hashtags.
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public CountHashtagOffHeapTask(OffHeapTweetStore store, int threshold) {
+        this(store, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with a store and the configuration of this invocation.
+     * @param store OffHeapTweetStore used to count hashtags.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagOffHeapTask(OffHeapTweetStore store, TaskConfig config) {
+        this(store, 0, store.size(), store.getDictionary().size(), config);
+    }
+
+    /**
+     * Private constructor to initialize actual work.
+     * @param store OffHeapTweetStore used to count hashtags.
+     * @param lo Lower boundary of work for this thread.
+     * @param hi Upper boundary of work for this thread.
+     * @param hashtags Length of the histograms.
+     * @param config Configuration shared by all subtasks.
+     */
+    private CountHashtagOffHeapTask(OffHeapTweetStore store, int lo, int hi, int hashtags, TaskConfig config) {
+        this.store = store;
+        this.lo = lo;
+        this.hi = hi;
+        this.hashtags = hashtags;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return int[] with the count of every hashtag id in the current subarray. Use OffHeapTweetStore.toHashtagMap to get names.
+     */
+    @Override
+    protected int[] compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            int[] counts = new int[hashtags];
+            if (lo == hi) return counts;
+            // The hashtags of tweets lo to hi are one contiguous slice of the CSR id buffer.
+            for (int j = store.getHashtagStart(lo); j < store.getHashtagEnd(hi - 1); j++)
+                counts[store.getHashtagId(j)]++;
+            return counts;
+        }
+
+        CountHashtagOffHeapTask left = new CountHashtagOffHeapTask(store, lo, (hi+lo)/2, hashtags, config);
+        CountHashtagOffHeapTask right = new CountHashtagOffHeapTask(store, (hi+lo)/2, hi, hashtags, config);
+
+        left.fork(); // Fork 1 Task first to start thread in background.
+        int[] rightCounts = right.compute(); // Run other Task in current thread.
+        int[] leftCounts = left.join(); // Call join() on forked Task to wait for the result of the thread.
+        for (int id = 0; id < rightCounts.length; id++)
+            rightCounts[id] += leftCounts[id];
+        return rightCounts;
+    }
+}
@@ -0,0 +1,79 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.TweetStore;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to count how often hashtags are used in a columnar TweetStore.
+ * Fase 1 - Implementation 1 over TweetStore
+ *
+ * Implementation using ForkJoin-framework with a RecursiveTask.
+ * Each thread only reads the CSR hashtag columns and returns an int[] indexed by hashtag id.
+ * Histograms are combined by adding them element-wise.
+ */
+public class CountHashtagStoreTask extends RecursiveTask<int[]> {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private TweetStore store;
+    private int lo;
+    private int hi;
+
+    /**
+     * Constructor to initialize with a store and sequential threshold.
+     * @param store TweetStore used to count hashtags.
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public CountHashtagStoreTask(TweetStore store, int threshold) {
+        this(store, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with a store and the configuration of this invocation.
+     * @param store TweetStore used to count hashtags.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagStoreTask(TweetStore store, TaskConfig config) {
+        this(store, 0, store.size(), config);
+    }
+
+    /**
+     * Private constructor to initialize actual work.
+     * @param store TweetStore used to count hashtags.
+     * @param lo Lower boundary of work for this thread.
+     * @param hi Upper boundary of work for this thread.
+     * @param config Configuration shared by all subtasks.
+     */
+    private CountHashtagStoreTask(TweetStore store, int lo, int hi, TaskConfig config) {
+        this.store = store;
+        this.lo = lo;
+        this.hi = hi;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return int[] with the count of every hashtag id in the current subarray. Use TweetStore.toHashtagMap to get names.
+     */
+    @Override
+    protected int[] compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            int[] counts = new int[store.getHashtagCount()];
+            // The hashtags of tweets lo to hi are one contiguous slice of the CSR id array.
+            for (int j = store.getHashtagStart(lo); j < store.getHashtagEnd(hi - 1); j++)
+                counts[store.getHashtagId(j)]++;
+            return counts;
+        }
+
+        CountHashtagStoreTask left = new CountHashtagStoreTask(store, lo, (hi+lo)/2, config);
+        CountHashtagStoreTask right = new CountHashtagStoreTask(store, (hi+lo)/2, hi, config);
+
+        left.fork(); // Fork 1 Task first to start thread in background.
+        int[] rightCounts = right.compute(); // Run other Task in current thread.
+        int[] leftCounts = left.join(); // Call join() on forked Task to wait for the result of the thread.
+        for (int id = 0; id < rightCounts.length; id++)
+            rightCounts[id] += leftCounts[id];
+        return rightCounts;
+    }
+}
@@ -15,8 +15,8 @@ import java.util.concurrent.RecursiveTask;
  * Each thread created returns a HashMap that can be combined with the HashMap from other thread.
  */
 public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
-    //Sequential threshold : lower boundary to start counting hashtags instead of creating new threads.
-    static int SEQ_THRESHOLD;
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
 
     private Tweet[] tweets;
     private int lo;
@@ -28,8 +28,16 @@ public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
      * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
      */
     public CountHashtagTask(Tweet[] tweets, int threshold) {
-        this(tweets, 0, tweets.length);
-        SEQ_THRESHOLD = threshold;
+        this(tweets, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects used to count hashtags.
+     * @param config Configuration with the sequential threshold.
+     */
+    public CountHashtagTask(Tweet[] tweets, TaskConfig config) {
+        this(tweets, 0, tweets.length, config);
     }
 
     /**
@@ -37,8 +45,7 @@ public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
      * @param tweets Array of Tweet-objects used to count hashtags.
      */
     public CountHashtagTask(Tweet[] tweets) {
-        this(tweets, 0, tweets.length);
-        SEQ_THRESHOLD = 3500;
+        this(tweets, 3500);
     }
 
     /**
@@ -46,11 +53,13 @@ public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
      * @param tweets Array of Tweet-objects used to count hashtags.
      * @param lo Lower boundary of work for this thread.
      * @param hi Upper boundary of work for this thread.
+     * @param config Configuration shared by all subtasks.
      */
-    private CountHashtagTask(Tweet[] tweets, int lo, int hi) {
+    private CountHashtagTask(Tweet[] tweets, int lo, int hi, TaskConfig config) {
         this.tweets = tweets;
         this.lo = lo;
         this.hi = hi;
+        this.config = config;
     }
 
     /**
@@ -60,7 +69,7 @@ public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
     @Override
     protected HashMap<String, Integer> compute() {
         // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, perform sequential hashtag count.
-        if ((hi - lo) <= SEQ_THRESHOLD)
+        if ((hi - lo) <= config.getThreshold())
             return countHashtags();
 
         // Else divide work and run threads.
@@ -72,8 +81,8 @@ public class CountHashtagTask extends RecursiveTask<HashMap<String, Integer>> {
      * @return counted hashtags
      */
     private HashMap<String, Integer> calculateRecursiveTasks() {
-        CountHashtagTask left = new CountHashtagTask(tweets, lo, (hi+lo)/2);
-        CountHashtagTask right = new CountHashtagTask(tweets, (hi+lo)/2, hi);
+        CountHashtagTask left = new CountHashtagTask(tweets, lo, (hi+lo)/2, config);
+        CountHashtagTask right = new CountHashtagTask(tweets, (hi+lo)/2, hi, config);
 
         // Fork 1 Task first to start thread in background.
         left.fork();
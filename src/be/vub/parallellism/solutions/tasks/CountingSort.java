@@ -0,0 +1,106 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Parallel stable counting sort over an int key per index, shared by CountingSortSentimentsTask and
+ * SortSentimentScoresTask, which only differ in what they move to the computed positions.
+ *
+ * The indices are divided in blocks of threshold indices that are processed in parallel:
+ *  1. every block finds its lowest and highest key,
+ *  2. every block counts its keys in its own histogram,
+ *  3. a prefix sum over (key, block) gives every block the first output position for every key,
+ *  4. every block assigns those positions to its indices, in order, which keeps the sort stable.
+ * All tasks run on the pool of the task that calls it.
+ */
+class CountingSort {
+    // Widest key range that is sorted by counting.
+    static final int MAX_RANGE = 1 << 16;
+
+    private CountingSort() {
+    }
+
+    /**
+     * Compute the stable ascending sorted position of every index.
+     * @param n Number of indices.
+     * @param keyOf Key of an index. Called three times for every index, from any thread.
+     * @param config Configuration with the number of indices per block as sequential threshold.
+     * @return Output position of every index, or null if the key range is wider than n (or MAX_RANGE) and counting
+     *         would cost more than comparing.
+     */
+    static int[] positions(int n, IntUnaryOperator keyOf, TaskConfig config) {
+        if (n == 0) return new int[0];
+        int blockSize = Math.min(n, config.getThreshold());
+        int blocks = (n + blockSize - 1) / blockSize;
+
+        // 1. Lowest and highest key of every block.
+        int[] mins = new int[blocks];
+        int[] maxs = new int[blocks];
+        runBlocks(blocks, (int b) -> {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i = b * blockSize; i < Math.min(n, (b + 1) * blockSize); i++) {
+                int key = keyOf.applyAsInt(i);
+                if (key < min) min = key;
+                if (key > max) max = key;
+            }
+            mins[b] = min;
+            maxs[b] = max;
+        });
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int b = 0; b < blocks; b++) {
+            min = Math.min(min, mins[b]);
+            max = Math.max(max, maxs[b]);
+        }
+
+        long range = (long) max - min + 1;
+        if (range > MAX_RANGE || range > n) return null;
+        int lowest = min;
+        int width = (int) range;
+
+        // 2. Histogram of every block.
+        int[][] histograms = new int[blocks][width];
+        runBlocks(blocks, (int b) -> {
+            int[] histogram = histograms[b];
+            for (int i = b * blockSize; i < Math.min(n, (b + 1) * blockSize); i++)
+                histogram[keyOf.applyAsInt(i) - lowest]++;
+        });
+
+        // 3. Prefix sum in (key, block) order: histograms[b][v] becomes the first output position of key v in block b.
+        int offset = 0;
+        for (int v = 0; v < width; v++) {
+            for (int b = 0; b < blocks; b++) {
+                int count = histograms[b][v];
+                histograms[b][v] = offset;
+                offset += count;
+            }
+        }
+
+        // 4. Stable assignment: every block hands out its own output positions in order.
+        int[] positions = new int[n];
+        runBlocks(blocks, (int b) -> {
+            int[] next = histograms[b];
+            for (int i = b * blockSize; i < Math.min(n, (b + 1) * blockSize); i++)
+                positions[i] = next[keyOf.applyAsInt(i) - lowest]++;
+        });
+        return positions;
+    }
+
+    /**
+     * Run work for every block in parallel and wait for all of it.
+     */
+    static void runBlocks(int blocks, BlockWork work) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks);
+        for (int b = 0; b < blocks; b++) {
+            int block = b;
+            tasks.add(ForkJoinTask.adapt(() -> work.run(block)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    interface BlockWork {
+        void run(int block);
+    }
+}
@@ -0,0 +1,81 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.Pair;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to Sort an array of Tweet sentiments based on sentiment value, specialised for small score ranges.
+ * Fase 2 - Counting sort
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * The input array will be sorted after invoking the action, in the same stable ascending order as SortSentimentsTask.
+ *
+ * The array is divided in blocks of threshold elements that are processed in parallel:
+ *  1-3. CountingSort finds the score range, counts the scores of every block and computes the output positions,
+ *  4. every block scatters its elements to their positions, which keeps the sort stable,
+ *  5. the sorted elements are copied back in parallel.
+ * This is linear in the number of tweets. If the score range is wider than the array (or CountingSort.MAX_RANGE),
+ * counting is no longer cheaper and the action falls back to the comparison sort of SortSentimentsTask.
+ */
+public class CountingSortSentimentsTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Pair<Tweet, Integer>[] array;
+
+    /**
+     * Public constructor to initialize action.
+     * @param array Scored tweets to sort.
+     * @param threshold Sequential threshold : number of elements per block.
+     */
+    public CountingSortSentimentsTask(Pair<Tweet, Integer>[] array, int threshold) {
+        this(array, new TaskConfig(Math.max(1, threshold)));
+    }
+
+    /**
+     * Public constructor to initialize action with the configuration of this invocation.
+     * @param array Scored tweets to sort.
+     * @param config Configuration with the number of elements per block as sequential threshold.
+     */
+    public CountingSortSentimentsTask(Pair<Tweet, Integer>[] array, TaskConfig config) {
+        this.array = array;
+        this.config = config;
+    }
+
+    public CountingSortSentimentsTask(Pair<Tweet, Integer>[] array) {
+        this(array, 10_000);
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        int n = array.length;
+        if (n < 2) return;
+        int[] positions = CountingSort.positions(n, (int i) -> array[i].getValue(), config);
+        if (positions == null) {
+            // Wide range: counting would cost more than comparing.
+            new SortSentimentsTask(array, config).invoke();
+            return;
+        }
+        int blockSize = Math.min(n, config.getThreshold());
+        int blocks = (n + blockSize - 1) / blockSize;
+
+        // 4. Stable scatter: every element goes to its own output position.
+        // Typed scratch array of the same length, every slot is overwritten by the scatter.
+        Pair<Tweet, Integer>[] sorted = array.clone();
+        CountingSort.runBlocks(blocks, (int b) -> {
+            for (int i = b * blockSize; i < Math.min(n, (b + 1) * blockSize); i++)
+                sorted[positions[i]] = array[i];
+        });
+
+        // 5. Copy back to the input array.
+        CountingSort.runBlocks(blocks, (int b) -> {
+            int from = b * blockSize;
+            System.arraycopy(sorted, from, array, from, Math.min(n, from + blockSize) - from);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.DuplicateTexts;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.HashMap;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to find the rows with identical tweet text.
+ * Fase 2 - Deduplication pre-pass
+ *
+ * Implementation using ForkJoin-Framework, hash partitioned like GroupByUserTask: the tweets are grouped by a hash
+ * of their text with Partitions, and the partitions are divided over the leaves. Identical texts are in the same
+ * partition, so every leaf finds the lowest row of every text of its partitions with a HashMap and writes it
+ * as the canonical row.
+ * Texts are compared with equals, so hash collisions only cost time.
+ * The hash is String.hashCode, which Java caches in the String, so later passes over the same tweets hash for free.
+ */
+public class DedupeTextsTask extends RecursiveTask<DuplicateTexts> {
+    private TaskConfig config;
+    private Tweet[] tweets;
+
+    /**
+     * Constructor to initialize with tweets and sequential threshold.
+     * @param tweets Array of Tweet-objects to deduplicate.
+     * @param threshold Sequential threshold : lower boundary to start hashing instead of dividing work.
+     */
+    public DedupeTextsTask(Tweet[] tweets, int threshold) {
+        this(tweets, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects to deduplicate.
+     * @param config Configuration with the sequential threshold.
+     */
+    public DedupeTextsTask(Tweet[] tweets, TaskConfig config) {
+        this.tweets = tweets;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return Canonical row of every tweet and the rows of the distinct texts.
+     */
+    @Override
+    protected DuplicateTexts compute() {
+        int n = tweets.length;
+        int count = Partitions.hashPartitions(n, config);
+        Partitions partitions = Partitions.group(n, count,
+                (int i) -> Partitions.hashPartition(tweets[i].getTweetText(), count), config);
+
+        int[] canonical = new int[n];
+        partitions.forEach((int p) -> resolvePartition(partitions, p, canonical));
+
+        int unique = 0;
+        for (int i = 0; i < n; i++)
+            if (canonical[i] == i) unique++;
+        int[] uniqueRows = new int[unique];
+        for (int i = 0, next = 0; i < n; i++)
+            if (canonical[i] == i) uniqueRows[next++] = i;
+        return new DuplicateTexts(canonical, uniqueRows);
+    }
+
+    /**
+     * Canonical rows of the tweets in partition p.
+     */
+    private void resolvePartition(Partitions partitions, int p, int[] canonical) {
+        int[] members = partitions.members;
+        int from = partitions.offsets[p];
+        int to = partitions.offsets[p + 1];
+        // Members are not in row order, so keep the lowest row of every text.
+        HashMap<String, Integer> firstRows = new HashMap<>((to - from) * 4 / 3 + 1);
+        for (int m = from; m < to; m++) {
+            int i = members[m];
+            firstRows.merge(tweets[i].getTweetText(), i, Math::min);
+        }
+        for (int m = from; m < to; m++) {
+            int i = members[m];
+            canonical[i] = firstRows.get(tweets[i].getTweetText());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.HashtagDictionary;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.models.UserStats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to compute activity and sentiment statistics per account (userid).
+ * Fase 4 - Group by user
+ *
+ * Implementation using ForkJoin-Framework, hash partitioned so partial aggregates never have to be merged:
+ * the tweets are grouped by a hash of their userid with Partitions, and the partitions are divided over the leaves.
+ * All tweets of an account are in the same partition, so every leaf computes complete statistics
+ * for the accounts of its partitions.
+ * There are about (tweets / threshold) partitions, rounded down to a power of two.
+ * Use SortTask with UserStats.Metric.comparator to order the result by a metric.
+ */
+public class GroupByUserTask extends RecursiveTask<UserStats[]> {
+    private TaskConfig config;
+    private Tweet[] tweets;
+    private int[] scores;
+    private HashtagDictionary dictionary;
+    private int topHashtags;
+
+    /**
+     * Constructor to initialize with tweets, their scores and sequential threshold.
+     * @param tweets Array of Tweet-objects to group.
+     * @param scores Sentiment score of every tweet, see ScoreSentimentsTask.
+     * @param dictionary Dictionary the hashtags are encoded in, tweets that were not encoded are added to it.
+     * @param topHashtags Number of most used hashtags to keep per account.
+     * @param threshold Sequential threshold : lower boundary to start aggregating instead of dividing work.
+     */
+    public GroupByUserTask(Tweet[] tweets, int[] scores, HashtagDictionary dictionary, int topHashtags, int threshold) {
+        this(tweets, scores, dictionary, topHashtags, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, their scores and the configuration of this invocation.
+     * @param config Configuration with the sequential threshold.
+     * @see #GroupByUserTask(Tweet[], int[], HashtagDictionary, int, int)
+     */
+    public GroupByUserTask(Tweet[] tweets, int[] scores, HashtagDictionary dictionary, int topHashtags, TaskConfig config) {
+        this.tweets = tweets;
+        this.scores = scores;
+        this.dictionary = dictionary;
+        this.topHashtags = topHashtags;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return Statistics of every account, in no particular order.
+     */
+    @Override
+    protected UserStats[] compute() {
+        int count = Partitions.hashPartitions(tweets.length, config);
+        Partitions partitions = Partitions.group(tweets.length, count,
+                (int i) -> Partitions.hashPartition(tweets[i].getUserid(), count), config);
+
+        UserStats[][] results = new UserStats[count][];
+        partitions.forEach((int p) -> results[p] = aggregatePartition(partitions, p));
+
+        int users = 0;
+        for (UserStats[] result : results)
+            users += result.length;
+        UserStats[] stats = new UserStats[users];
+        int next = 0;
+        for (UserStats[] result : results) {
+            System.arraycopy(result, 0, stats, next, result.length);
+            next += result.length;
+        }
+        return stats;
+    }
+
+    /**
+     * Statistics of the accounts in partition p.
+     */
+    private UserStats[] aggregatePartition(Partitions partitions, int p) {
+        int[] members = partitions.members;
+        int from = partitions.offsets[p];
+        int size = partitions.size(p);
+
+        // Number the accounts of this partition, then order the tweets by account (counting sort).
+        HashMap<String, Integer> userIds = new HashMap<>();
+        int[] userOf = new int[size];
+        int[] userOffsets = new int[size + 1];
+        for (int m = 0; m < size; m++) {
+            String userid = tweets[members[from + m]].getUserid();
+            int u = userIds.computeIfAbsent(userid, (String key) -> userIds.size());
+            userOf[m] = u;
+            userOffsets[u + 1]++;
+        }
+        int users = userIds.size();
+        for (int u = 0; u < users; u++)
+            userOffsets[u + 1] += userOffsets[u];
+        int[] next = Arrays.copyOf(userOffsets, users);
+        int[] order = new int[size];
+        for (int m = 0; m < size; m++)
+            order[next[userOf[m]]++] = members[from + m];
+
+        UserStats[] result = new UserStats[users];
+        Scratch scratch = Scratch.get();
+        for (int u = 0; u < users; u++) {
+            long scoreSum = 0;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            long hashtagCount = 0;
+            // Tweets are not in input order within a partition, the first tweet is the one with the lowest index.
+            int first = Integer.MAX_VALUE;
+            int touched = 0;
+            int[] counts = scratch.counts(dictionary.size());
+            for (int k = userOffsets[u]; k < userOffsets[u + 1]; k++) {
+                int i = order[k];
+                first = Math.min(first, i);
+                scoreSum += scores[i];
+                min = Math.min(min, scores[i]);
+                max = Math.max(max, scores[i]);
+
+                int[] ids = tweets[i].getHashtagIds();
+                if (ids == null) {
+                    for (String hashtag : tweets[i].getHashtags()) {
+                        int id = dictionary.idOf(hashtag);
+                        counts = scratch.counts(id + 1);
+                        if (counts[id]++ == 0) scratch.touch(touched++, id);
+                    }
+                    hashtagCount += tweets[i].getHashtags().size();
+                    continue;
+                }
+                for (int id : ids)
+                    if (counts[id]++ == 0) scratch.touch(touched++, id);
+                hashtagCount += ids.length;
+            }
+            int[][] top = scratch.drainSorted(touched, topHashtags);
+
+            result[u] = new UserStats(tweets[first].getUserid(), tweets[first].getUserScreenName(), userOffsets[u + 1] - userOffsets[u],
+                    scoreSum, min, max, hashtagCount, top[0], top[1], dictionary);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Groups indices by the group they belong to, in parallel.
+ *
+ * Given the group of every index and the first position of every group (a prefix sum over the group sizes),
+ * writes every index in the slice of its group: members[offsets[g], offsets[g+1]) are the indices of group g.
+ * Every leaf counts its indices per group, reserves room with one atomic add per group it touches, and
+ * writes its indices to the reserved positions, so indices within a group are not in order.
+ */
+class GroupIndicesTask extends RecursiveAction {
+    private TaskConfig config;
+
+    private int[] groupOf;
+    private int lo;
+    private int hi;
+    // Next free position in the slice of every group.
+    private AtomicIntegerArray next;
+    private int[] members;
+
+    /**
+     * @param groupOf Group of every index, -1 to leave an index out.
+     * @param offsets First position of every group, offsets[groups] is the number of indices that are grouped.
+     * @param config Configuration with the sequential threshold.
+     * @return Indices grouped by group.
+     */
+    static int[] group(int[] groupOf, int[] offsets, TaskConfig config) {
+        int groups = offsets.length - 1;
+        int[] members = new int[offsets[groups]];
+        new GroupIndicesTask(groupOf, 0, groupOf.length, new AtomicIntegerArray(Arrays.copyOf(offsets, groups)), members, config).invoke();
+        return members;
+    }
+
+    private GroupIndicesTask(int[] groupOf, int lo, int hi, AtomicIntegerArray next, int[] members, TaskConfig config) {
+        this.groupOf = groupOf;
+        this.lo = lo;
+        this.hi = hi;
+        this.next = next;
+        this.members = members;
+        this.config = config;
+    }
+
+    @Override
+    protected void compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            Scratch scratch = Scratch.get();
+            int[] local = scratch.counts(next.length());
+            int touched = 0;
+            // Count the indices of this leaf per group, remember which groups were touched.
+            for (int i = lo; i < hi; i++) {
+                int g = groupOf[i];
+                if (g < 0) continue;
+                if (local[g]++ == 0)
+                    scratch.touch(touched++, g);
+            }
+            // Reserve room in every touched group with one atomic add, local[g] becomes the first free position.
+            for (int t = 0; t < touched; t++) {
+                int g = scratch.touched(t);
+                local[g] = next.getAndAdd(g, local[g]);
+            }
+            for (int i = lo; i < hi; i++) {
+                int g = groupOf[i];
+                if (g >= 0) members[local[g]++] = i;
+            }
+            scratch.clear(touched);
+            return;
+        }
+
+        GroupIndicesTask left = new GroupIndicesTask(groupOf, lo, (hi+lo)/2, next, members, config);
+        GroupIndicesTask right = new GroupIndicesTask(groupOf, (hi+lo)/2, hi, next, members, config);
+        left.fork(); // Fork 1 Task first to start thread in background.
+        right.compute(); // Run other Task in current thread.
+        left.join(); // Call join() on forked Task to wait for it to finish.
+    }
+}
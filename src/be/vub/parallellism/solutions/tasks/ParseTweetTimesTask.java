@@ -0,0 +1,76 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.models.TweetTimes;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to parse the tweetTime of each Tweet in a Tweet-array into seconds since the epoch.
+ * Fase 3 - Time buckets
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * Times are parsed once and written to a long[] indexed like the tweets, see TweetTimes.
+ */
+public class ParseTweetTimesTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private long[] seconds;
+
+    /**
+     * Constructor to initialize with tweets and sequential threshold.
+     * @param tweets Array of Tweet-objects to parse the times of.
+     * @param threshold Sequential threshold : lower boundary to start parsing instead of dividing work.
+     */
+    public ParseTweetTimesTask(Tweet[] tweets, int threshold) {
+        this(tweets, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects to parse the times of.
+     * @param config Configuration with the sequential threshold.
+     */
+    public ParseTweetTimesTask(Tweet[] tweets, TaskConfig config) {
+        this(tweets, 0, tweets.length, new long[tweets.length], config);
+    }
+
+    private ParseTweetTimesTask(Tweet[] tweets, int lo, int hi, long[] seconds, TaskConfig config) {
+        this.tweets = tweets;
+        this.lo = lo;
+        this.hi = hi;
+        this.seconds = seconds;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        if ((hi-lo) <= config.getThreshold()) {
+            for (int i = lo; i < hi; i++)
+                seconds[i] = TweetTimes.parseEpochSecond(tweets[i].getTweetTime());
+        }
+        else {
+            ParseTweetTimesTask left = new ParseTweetTimesTask(tweets, lo, (hi+lo)/2, seconds, config);
+            ParseTweetTimesTask right = new ParseTweetTimesTask(tweets, (hi+lo)/2, hi, seconds, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Public method to access result, after the task completed.
+     * @return TweetTimes indexed like the tweets.
+     */
+    public TweetTimes getResult() {
+        return new TweetTimes(seconds);
+    }
+}
@@ -0,0 +1,180 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Indices grouped by partition, for the tasks that aggregate every partition on its own
+ * (GroupByUserTask, AggregateTimeBucketsTask, DedupeTextsTask).
+ *
+ * Grouping takes two parallel passes:
+ *  1. every leaf computes the partition of its indices and counts indices per partition, the counts are added
+ *     at join (a forked task that was not stolen counts in the array of its parent),
+ *  2. a prefix sum over the counts gives every partition its slice of one member array, the indices are written
+ *     to the slices of their partitions by GroupIndicesTask.
+ * forEach then divides the partitions over the leaves. All tasks run on the pool of the task that calls them.
+ */
+class Partitions {
+    // Most hash partitions, every leaf of pass 1 needs an array of counters per partition.
+    static final int MAX_HASH_PARTITIONS = 1 << 16;
+
+    private final TaskConfig config;
+    // Indices of partition p are members[offsets[p], offsets[p+1]).
+    final int[] offsets;
+    final int[] members;
+
+    private Partitions(int[] offsets, int[] members, TaskConfig config) {
+        this.offsets = offsets;
+        this.members = members;
+        this.config = config;
+    }
+
+    /**
+     * Group the indices [0, size) by partition.
+     * @param size Number of indices.
+     * @param partitions Number of partitions.
+     * @param partitionOf Partition of an index, -1 to leave it out. Called once for every index, from any thread.
+     * @param config Configuration with the sequential threshold.
+     * @return Indices grouped by partition, not in order within a partition.
+     */
+    static Partitions group(int size, int partitions, IntUnaryOperator partitionOf, TaskConfig config) {
+        int[] groupOf = new int[size];
+        int[] counts = new CountTask(groupOf, 0, size, partitions, null, partitionOf, config).invoke();
+
+        int[] offsets = new int[partitions + 1];
+        for (int p = 0; p < partitions; p++)
+            offsets[p + 1] = offsets[p] + counts[p];
+        return new Partitions(offsets, GroupIndicesTask.group(groupOf, offsets, config), config);
+    }
+
+    /**
+     * @return Number of hash partitions for size indices: about size / threshold, rounded down to a power of two.
+     */
+    static int hashPartitions(int size, TaskConfig config) {
+        return Integer.highestOneBit(Math.max(1, Math.min(MAX_HASH_PARTITIONS, size / config.getThreshold())));
+    }
+
+    /**
+     * Fibonacci hashing of a key to one of a power of two number of partitions.
+     * @param key Key to hash, null goes to the partition of hash 0.
+     * @param partitions Number of partitions, a power of two.
+     */
+    static int hashPartition(String key, int partitions) {
+        if (partitions == 1) return 0;
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(partitions));
+    }
+
+    int count() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return Number of indices in partition p.
+     */
+    int size(int p) {
+        return offsets[p + 1] - offsets[p];
+    }
+
+    /**
+     * Aggregate every partition in parallel. Ranges of partitions are split by number of indices, not by number of
+     * partitions, so a few large partitions do not end up in one leaf.
+     * @param aggregate Called once for every partition, from any thread.
+     */
+    void forEach(IntConsumer aggregate) {
+        new EachTask(0, count(), aggregate).invoke();
+    }
+
+    /**
+     * Pass 1, same structure as CountHashtagIdsTask.
+     */
+    private static class CountTask extends RecursiveTask<int[]> {
+        private int[] groupOf;
+        private int lo;
+        private int hi;
+        private int partitions;
+        private int[] counts;
+        private IntUnaryOperator partitionOf;
+        private TaskConfig config;
+
+        CountTask(int[] groupOf, int lo, int hi, int partitions, int[] counts, IntUnaryOperator partitionOf, TaskConfig config) {
+            this.groupOf = groupOf;
+            this.lo = lo;
+            this.hi = hi;
+            this.partitions = partitions;
+            this.counts = counts;
+            this.partitionOf = partitionOf;
+            this.config = config;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (counts == null)
+                counts = new int[partitions];
+
+            if ((hi - lo) <= config.getThreshold()) {
+                for (int i = lo; i < hi; i++) {
+                    int p = partitionOf.applyAsInt(i);
+                    groupOf[i] = p;
+                    if (p >= 0) counts[p]++;
+                }
+                return counts;
+            }
+
+            CountTask left = new CountTask(groupOf, lo, (hi+lo)/2, partitions, null, partitionOf, config);
+            CountTask right = new CountTask(groupOf, (hi+lo)/2, hi, partitions, counts, partitionOf, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            if (left.tryUnfork()) {
+                // Nobody took the left half: count it in the same array.
+                left.counts = counts;
+                left.compute();
+            } else {
+                int[] leftCounts = left.join();
+                for (int p = 0; p < partitions; p++)
+                    counts[p] += leftCounts[p];
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Aggregate partitions [lo, hi).
+     */
+    private class EachTask extends RecursiveAction {
+        private int lo;
+        private int hi;
+        private IntConsumer aggregate;
+
+        EachTask(int lo, int hi, IntConsumer aggregate) {
+            this.lo = lo;
+            this.hi = hi;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1 || offsets[hi] - offsets[lo] <= config.getThreshold()) {
+                for (int p = lo; p < hi; p++)
+                    aggregate.accept(p);
+                return;
+            }
+
+            // Split where half of the indices of this range are on each side.
+            int half = offsets[lo] + (offsets[hi] - offsets[lo]) / 2;
+            int middle = Arrays.binarySearch(offsets, lo, hi + 1, half);
+            if (middle < 0) middle = -middle - 1;
+            middle = Math.max(lo + 1, Math.min(hi - 1, middle));
+
+            EachTask left = new EachTask(lo, middle, aggregate);
+            EachTask right = new EachTask(middle, hi, aggregate);
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+}
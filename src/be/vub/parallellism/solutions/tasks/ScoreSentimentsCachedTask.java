@@ -0,0 +1,110 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+import be.vub.parallellism.data.readers.ScoreCache;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to calculate the sentiment value of each Tweet in a Tweet-array, reusing the scores of a ScoreCache.
+ * Fase 2 - Primitive scores with cache
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveTask.
+ * Every leaf hashes the text of its tweets and looks the hash up in the cache. Only tweets whose text is not in
+ * the cache are scored. The hashes are kept, so the caller can write a new cache.
+ * The result of the task is the number of tweets that had to be scored.
+ */
+public class ScoreSentimentsCachedTask extends RecursiveTask<Integer> {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private int[] scores;
+    private long[] hashes;
+    private ScoreCache cache;
+    private SentimentLexicon lexicon;
+    private SentimentScores result;
+
+    /**
+     * Constructor to initialize with tweets, cache, lexicon and sequential threshold.
+     * @param tweets Array of Tweet-objects to score.
+     * @param cache Cache made with the same lexicon, or null to score every tweet.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public ScoreSentimentsCachedTask(Tweet[] tweets, ScoreCache cache, SentimentLexicon lexicon, int threshold) {
+        this(tweets, cache, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, cache, lexicon and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects to score.
+     * @param cache Cache made with the same lexicon, or null to score every tweet.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration with the sequential threshold.
+     */
+    public ScoreSentimentsCachedTask(Tweet[] tweets, ScoreCache cache, SentimentLexicon lexicon, TaskConfig config) {
+        this(new SentimentScores(tweets), new long[tweets.length], 0, tweets.length, cache, lexicon, config);
+    }
+
+    private ScoreSentimentsCachedTask(SentimentScores result, long[] hashes, int lo, int hi, ScoreCache cache,
+                                      SentimentLexicon lexicon, TaskConfig config) {
+        this.result = result;
+        this.tweets = result.getTweets();
+        this.scores = result.getScores();
+        this.hashes = hashes;
+        this.lo = lo;
+        this.hi = hi;
+        this.cache = cache;
+        this.lexicon = lexicon;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return Number of tweets in the current subarray that were not in the cache.
+     */
+    @Override
+    protected Integer compute() {
+        if ((hi-lo) <= config.getThreshold()) {
+            int scored = 0;
+            for (int i = lo; i < hi; i++) {
+                hashes[i] = ScoreCache.hash(tweets[i].getTweetText());
+                int cached = cache == null ? ScoreCache.MISSING : cache.lookup(i, hashes[i]);
+                if (cached != ScoreCache.MISSING) {
+                    scores[i] = cached;
+                } else {
+                    scores[i] = tweets[i].calculateSentimentScore(lexicon, config.isAsciiFastPath());
+                    scored++;
+                }
+            }
+            return scored;
+        }
+
+        ScoreSentimentsCachedTask left = new ScoreSentimentsCachedTask(result, hashes, lo, (hi+lo)/2, cache, lexicon, config);
+        ScoreSentimentsCachedTask right = new ScoreSentimentsCachedTask(result, hashes, (hi+lo)/2, hi, cache, lexicon, config);
+
+        left.fork(); // Fork 1 Task first to start thread in background.
+        int rightScored = right.compute(); // Run other Task in current thread.
+        return left.join() + rightScored; // Call join() on forked Task to wait for the result of the thread.
+    }
+
+    /**
+     * Public method to access result.
+     * @return SentimentScores with the score of every tweet.
+     */
+    public SentimentScores getResult() {
+        return result;
+    }
+
+    /**
+     * @return Text hash of every tweet, to write a new ScoreCache.
+     */
+    public long[] getHashes() {
+        return hashes;
+    }
+}
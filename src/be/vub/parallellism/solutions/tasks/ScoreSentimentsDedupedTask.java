@@ -0,0 +1,130 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.DuplicateTexts;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to calculate the sentiment value of each Tweet once per distinct text.
+ * Fase 2 - Primitive scores over deduplicated texts
+ *
+ * Implementation using ForkJoin-Framework in two passes over the rows found by DedupeTextsTask:
+ *  1. the first row of every distinct text is scored, divided over the leaves like ScoreSentimentsTask,
+ *  2. every other row copies the score of its canonical row.
+ * Same scores as ScoreSentimentsTask, the tokenizer runs DuplicateTexts.getUniqueCount() times instead of once per row.
+ */
+public class ScoreSentimentsDedupedTask extends RecursiveAction {
+    private TaskConfig config;
+    private Tweet[] tweets;
+    private DuplicateTexts duplicates;
+    private SentimentLexicon lexicon;
+    private SentimentScores result;
+
+    /**
+     * Constructor to initialize with tweets, their duplicates, lexicon and sequential threshold.
+     * @param tweets Array of Tweet-objects to score.
+     * @param duplicates Canonical rows of the tweets, see DedupeTextsTask.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public ScoreSentimentsDedupedTask(Tweet[] tweets, DuplicateTexts duplicates, SentimentLexicon lexicon, int threshold) {
+        this(tweets, duplicates, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, their duplicates, lexicon and the configuration of this invocation.
+     * @param config Configuration with the sequential threshold.
+     * @see #ScoreSentimentsDedupedTask(Tweet[], DuplicateTexts, SentimentLexicon, int)
+     */
+    public ScoreSentimentsDedupedTask(Tweet[] tweets, DuplicateTexts duplicates, SentimentLexicon lexicon, TaskConfig config) {
+        this.tweets = tweets;
+        this.duplicates = duplicates;
+        this.lexicon = lexicon;
+        this.config = config;
+        this.result = new SentimentScores(tweets);
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        // 1. Score the canonical rows, they are final before any copy reads them.
+        new ScorePass(0, duplicates.getUniqueCount()).invoke();
+        // 2. Fan the scores out to the duplicates.
+        new FanOutPass(0, tweets.length).invoke();
+    }
+
+    /**
+     * Public method to access result.
+     * @return SentimentScores with the score of every tweet.
+     */
+    public SentimentScores getResult() {
+        return result;
+    }
+
+    /**
+     * Pass 1: score the unique rows [lo, hi) of DuplicateTexts.getUniqueRows().
+     */
+    private class ScorePass extends RecursiveAction {
+        private int lo;
+        private int hi;
+
+        ScorePass(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi - lo) <= config.getThreshold()) {
+                int[] uniqueRows = duplicates.getUniqueRows();
+                int[] scores = result.getScores();
+                for (int u = lo; u < hi; u++) {
+                    int i = uniqueRows[u];
+                    scores[i] = tweets[i].calculateSentimentScore(lexicon, config.isAsciiFastPath());
+                }
+                return;
+            }
+
+            ScorePass left = new ScorePass(lo, (hi+lo)/2);
+            ScorePass right = new ScorePass((hi+lo)/2, hi);
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Pass 2: copy the score of the canonical row to rows [lo, hi).
+     */
+    private class FanOutPass extends RecursiveAction {
+        private int lo;
+        private int hi;
+
+        FanOutPass(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi - lo) <= config.getThreshold()) {
+                int[] canonical = duplicates.getCanonical();
+                int[] scores = result.getScores();
+                for (int i = lo; i < hi; i++)
+                    if (canonical[i] != i) scores[i] = scores[canonical[i]];
+                return;
+            }
+
+            FanOutPass left = new FanOutPass(lo, (hi+lo)/2);
+            FanOutPass right = new FanOutPass((hi+lo)/2, hi);
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+}
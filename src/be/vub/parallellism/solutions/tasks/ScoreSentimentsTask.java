@@ -0,0 +1,86 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.lexicon.SentimentLexicon;
+import be.vub.parallellism.data.models.SentimentScores;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to calculate the sentiment value of each Tweet in a Tweet-array into a primitive int[].
+ * Fase 2 - Primitive scores
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * Unlike CalculateSentimentScoreTask no Pair or Integer is created per tweet: scores are written to
+ * SentimentScores.getScores() at the index of the tweet, and tweets are scored in place with a SentimentLexicon.
+ */
+public class ScoreSentimentsTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private int[] scores;
+    private SentimentLexicon lexicon;
+    private SentimentScores result;
+
+    /**
+     * Constructor to initialize with tweets, lexicon and sequential threshold.
+     * @param tweets Array of Tweet-objects to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param threshold Sequential threshold : lower boundary to start scoring instead of dividing work.
+     */
+    public ScoreSentimentsTask(Tweet[] tweets, SentimentLexicon lexicon, int threshold) {
+        this(tweets, lexicon, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, lexicon and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects to score.
+     * @param lexicon Lexicon with positive and negative words.
+     * @param config Configuration with the sequential threshold.
+     */
+    public ScoreSentimentsTask(Tweet[] tweets, SentimentLexicon lexicon, TaskConfig config) {
+        this(new SentimentScores(tweets), 0, tweets.length, lexicon, config);
+    }
+
+    private ScoreSentimentsTask(SentimentScores result, int lo, int hi, SentimentLexicon lexicon, TaskConfig config) {
+        this.result = result;
+        this.tweets = result.getTweets();
+        this.scores = result.getScores();
+        this.lo = lo;
+        this.hi = hi;
+        this.lexicon = lexicon;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, calculate sentiment for current sub-array.
+        if ((hi-lo) <= config.getThreshold()) {
+            for (int i = lo; i < hi; i++)
+                scores[i] = tweets[i].calculateSentimentScore(lexicon, config.isAsciiFastPath());
+        }
+        // Else divide work.
+        else {
+            ScoreSentimentsTask left = new ScoreSentimentsTask(result, lo, (hi+lo)/2, lexicon, config);
+            ScoreSentimentsTask right = new ScoreSentimentsTask(result, (hi+lo)/2, hi, lexicon, config);
+
+            left.fork(); // Fork 1 Task first to start thread in background.
+            right.compute(); // Run other Task in current thread.
+            left.join(); // Call join() on forked Task to wait for it to finish.
+        }
+    }
+
+    /**
+     * Public method to access result.
+     * @return SentimentScores with the score of every tweet.
+     */
+    public SentimentScores getResult() {
+        return result;
+    }
+}
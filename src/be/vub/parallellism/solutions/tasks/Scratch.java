@@ -0,0 +1,77 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+
+/**
+ * Zeroed counters per worker thread, with a list of the counters that are in use so they can be zeroed
+ * again without clearing the whole array. Leaves must leave the counters zeroed (clear) before they return.
+ */
+class Scratch {
+    private static final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(Scratch::new);
+
+    private int[] counts = new int[0];
+    private int[] touched = new int[64];
+
+    /**
+     * @return Scratch space of the current thread.
+     */
+    static Scratch get() {
+        return scratches.get();
+    }
+
+    /**
+     * @return Zeroed counters, at least size of them. Counters in use are kept when the array grows.
+     */
+    int[] counts(int size) {
+        if (counts.length < size)
+            counts = Arrays.copyOf(counts, Math.max(size, counts.length * 2));
+        return counts;
+    }
+
+    /**
+     * Remember that counter index is in use, as the t-th touched counter.
+     */
+    void touch(int t, int index) {
+        if (t == touched.length)
+            touched = Arrays.copyOf(touched, touched.length * 2);
+        touched[t] = index;
+    }
+
+    int touched(int t) {
+        return touched[t];
+    }
+
+    /**
+     * Zero the first touched counters that are in use.
+     */
+    void clear(int touched) {
+        for (int t = 0; t < touched; t++)
+            counts[this.touched[t]] = 0;
+    }
+
+    /**
+     * Take the counters in use, highest count first and lowest index first on equal counts, and zero them.
+     * @param touched Number of touched counters.
+     * @param limit Most counters to return.
+     * @return {indices, counts} of at most limit counters.
+     */
+    int[][] drainSorted(int touched, int limit) {
+        // Sort (count, index) packed in a long.
+        long[] keys = new long[touched];
+        for (int t = 0; t < touched; t++) {
+            int index = this.touched[t];
+            keys[t] = ((long) (Integer.MAX_VALUE - counts[index]) << 32) | index;
+        }
+        clear(touched);
+        Arrays.sort(keys);
+
+        int size = Math.min(limit, touched);
+        int[] indices = new int[size];
+        int[] values = new int[size];
+        for (int t = 0; t < size; t++) {
+            indices[t] = (int) keys[t];
+            values[t] = Integer.MAX_VALUE - (int) (keys[t] >>> 32);
+        }
+        return new int[][] {indices, values};
+    }
+}
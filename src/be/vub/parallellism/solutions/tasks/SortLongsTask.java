@@ -0,0 +1,135 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts a long[] in ascending order, in parallel on the pool that invokes it (Arrays.parallelSort always runs on
+ * the common pool).
+ *
+ * Same mergesort as SortTask over primitives: one auxiliary buffer that alternates with the input array between
+ * levels, Arrays.sort below the sequential threshold, and large merges split in two independent merges by binary search.
+ */
+class SortLongsTask extends RecursiveAction {
+    // Sorted result of this range ends up in dst, src is scratch space. Both hold the same elements when the task starts.
+    private long[] src;
+    private long[] dst;
+    private int lo;
+    private int hi;
+    private TaskConfig config;
+
+    /**
+     * @param array Array to sort.
+     * @param config Configuration with the sequential threshold, raised to 2 if it is lower.
+     */
+    SortLongsTask(long[] array, TaskConfig config) {
+        // The auxiliary buffer starts as a copy, so both buffers hold the same elements.
+        this(array.clone(), array, 0, array.length, config.atLeast(2));
+    }
+
+    private SortLongsTask(long[] src, long[] dst, int lo, int hi, TaskConfig config) {
+        this.src = src;
+        this.dst = dst;
+        this.lo = lo;
+        this.hi = hi;
+        this.config = config;
+    }
+
+    @Override
+    protected void compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            Arrays.sort(dst, lo, hi);
+            return;
+        }
+
+        // Sort both halves into src (swapping the roles of the buffers) and merge them into dst.
+        int middle = lo + (hi-lo)/2;
+        SortLongsTask left = new SortLongsTask(dst, src, lo, middle, config);
+        SortLongsTask right = new SortLongsTask(dst, src, middle, hi, config);
+
+        left.fork(); right.compute(); left.join();
+        new MergeTask(src, lo, middle, middle, hi, dst, lo, config).compute();
+    }
+
+    /**
+     * Merge the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst starting at index out, like SortTask.
+     */
+    private static class MergeTask extends RecursiveAction {
+        private long[] src;
+        private int lo1, hi1, lo2, hi2;
+        private long[] dst;
+        private int out;
+        private TaskConfig config;
+
+        MergeTask(long[] src, int lo1, int hi1, int lo2, int hi2, long[] dst, int out, TaskConfig config) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.config = config;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = hi1 - lo1;
+            int length2 = hi2 - lo2;
+            if (length1 + length2 <= config.getThreshold()) {
+                mergeSequentially();
+                return;
+            }
+
+            int split1, split2;
+            if (length1 >= length2) {
+                // Right run elements strictly below the pivot go before it.
+                split1 = lo1 + length1 / 2;
+                split2 = lowerBound(src, lo2, hi2, src[split1]);
+            } else {
+                // Left run elements up to and including the pivot go before it.
+                split2 = lo2 + length2 / 2;
+                split1 = upperBound(src, lo1, hi1, src[split2]);
+            }
+
+            int outSplit = out + (split1 - lo1) + (split2 - lo2);
+            MergeTask left = new MergeTask(src, lo1, split1, lo2, split2, dst, out, config);
+            MergeTask right = new MergeTask(src, split1, hi1, split2, hi2, dst, outSplit, config);
+            left.fork(); right.compute(); left.join();
+        }
+
+        private void mergeSequentially() {
+            int i = lo1, j = lo2, k = out;
+            while (i < hi1 && j < hi2) {
+                if (src[i] <= src[j]) dst[k++] = src[i++];
+                else dst[k++] = src[j++];
+            }
+            if (i < hi1) System.arraycopy(src, i, dst, k, hi1 - i);
+            if (j < hi2) System.arraycopy(src, j, dst, k, hi2 - j);
+        }
+
+        /**
+         * @return First index in [lo, hi) with a value >= key.
+         */
+        private static int lowerBound(long[] array, int lo, int hi, long key) {
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (array[middle] < key) lo = middle + 1;
+                else hi = middle;
+            }
+            return lo;
+        }
+
+        /**
+         * @return First index in [lo, hi) with a value > key.
+         */
+        private static int upperBound(long[] array, int lo, int hi, long key) {
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (array[middle] <= key) lo = middle + 1;
+                else hi = middle;
+            }
+            return lo;
+        }
+    }
+}
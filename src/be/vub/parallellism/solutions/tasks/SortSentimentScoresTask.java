@@ -0,0 +1,80 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.SentimentScores;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to Sort primitive sentiment scores.
+ * Fase 2 - Primitive scores
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction.
+ * After invoking the action SentimentScores.getOrder() holds the indices of the tweets in stable ascending score order.
+ * The scores themselves are not moved and nothing is allocated per tweet.
+ *
+ * Same parallel counting sort as CountingSortSentimentsTask (CountingSort), but over int[] scores: the indices
+ * are scattered to their stable output positions.
+ * Wide score ranges fall back to sorting (score, index) pairs packed in a long[], which is stable because
+ * the index breaks ties. The fallback is a SortLongsTask, so it runs on the same pool as the rest of the sort.
+ */
+public class SortSentimentScoresTask extends RecursiveAction {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private SentimentScores result;
+
+    /**
+     * Public constructor to initialize action.
+     * @param result Scores to sort.
+     * @param threshold Sequential threshold : number of scores per block.
+     */
+    public SortSentimentScoresTask(SentimentScores result, int threshold) {
+        this(result, new TaskConfig(Math.max(1, threshold)));
+    }
+
+    /**
+     * Public constructor to initialize action with the configuration of this invocation.
+     * @param result Scores to sort.
+     * @param config Configuration with the number of scores per block as sequential threshold.
+     */
+    public SortSentimentScoresTask(SentimentScores result, TaskConfig config) {
+        this.result = result;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        int[] scores = result.getScores();
+        int n = scores.length;
+        int[] order = new int[n];
+        result.setOrder(order);
+        if (n == 0) return;
+
+        int[] positions = CountingSort.positions(n, (int i) -> scores[i], config);
+        if (positions == null) {
+            sortWide(scores, order);
+            return;
+        }
+        int blockSize = Math.min(n, config.getThreshold());
+        int blocks = (n + blockSize - 1) / blockSize;
+
+        // Stable scatter of the indices.
+        CountingSort.runBlocks(blocks, (int b) -> {
+            for (int i = b * blockSize; i < Math.min(n, (b + 1) * blockSize); i++)
+                order[positions[i]] = i;
+        });
+    }
+
+    private void sortWide(int[] scores, int[] order) {
+        // Score in the high bits (signed, so negative scores sort first), index in the low bits.
+        long[] keys = new long[scores.length];
+        for (int i = 0; i < scores.length; i++)
+            keys[i] = ((long) scores[i] << 32) | i;
+        new SortLongsTask(keys, config).invoke();
+        for (int k = 0; k < keys.length; k++)
+            order[k] = (int) keys[k];
+    }
+}
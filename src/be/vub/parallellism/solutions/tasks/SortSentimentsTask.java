@@ -14,31 +14,67 @@ import java.util.concurrent.RecursiveAction;
  * @author drlaerem
  *
  * Implementation using ForkJoin-Framework with a RecursiveAction.
- * The input array will be sorted after invoking the action.
+ * The input array will be sorted after invoking the action. The sort is stable.
+ *
+ * Mergesort with one auxiliary buffer that is allocated once and alternates with the input array between levels:
+ * to sort a range into one buffer, both halves are sorted into the other buffer and then merged back.
+ * Below the sequential threshold a range is sorted with insertion sort (small ranges) or Arrays.sort.
+ * Large merges are split in two independent merges by binary search, so the top levels are parallel as well.
  */
 public class SortSentimentsTask extends RecursiveAction {
-    private Pair<Tweet, Integer>[] array;
+    // Ranges up to this size are sorted with insertion sort instead of Arrays.sort.
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final Comparator<Pair<Tweet, Integer>> BY_SCORE = Comparator.comparing(Pair::getValue);
+
+    // Sorted result of this range ends up in dst, src is scratch space. Both hold the same elements when the task starts.
+    private Pair<Tweet, Integer>[] src;
+    private Pair<Tweet, Integer>[] dst;
     private int lo;
     private int hi;
+    // Configuration of this invocation, shared by all subtasks and merges.
+    private TaskConfig config;
 
     /**
      * Public constructor to initialize action.
-     * @param array
+     * @param array Array to sort.
+     * @param threshold Sequential threshold : lower boundary to sort sequentially instead of dividing work.
+     */
+    public SortSentimentsTask(Pair<Tweet, Integer>[] array, int threshold) {
+        this(array, new TaskConfig(Math.max(2, threshold)));
+    }
+
+    /**
+     * Public constructor to initialize action with the configuration of this invocation.
+     * @param array Array to sort.
+     * @param config Configuration with the sequential threshold, raised to 2 if it is lower.
+     */
+    public SortSentimentsTask(Pair<Tweet, Integer>[] array, TaskConfig config) {
+        // The auxiliary buffer starts as a copy, so both buffers hold the same elements.
+        this(array.clone(), array, 0, array.length, config.atLeast(2));
+    }
+
+    /**
+     * Public constructor to initialize action with the default threshold.
+     * @param array Array to sort.
      */
     public SortSentimentsTask(Pair<Tweet, Integer>[] array) {
-        this(array, 0, array.length);
+        this(array, 8192);
     }
 
     /**
      * Private constructor to devide work.
-     * @param array
-     * @param lo
-     * @param hi
+     * @param src Scratch buffer.
+     * @param dst Buffer the sorted range ends up in.
+     * @param lo Lower boundary of work for this action.
+     * @param hi Upper boundary of work for this action.
+     * @param config Configuration shared by all subtasks.
      */
-    private SortSentimentsTask(Pair<Tweet, Integer>[] array, int lo, int hi) {
-        this.array = array;
+    private SortSentimentsTask(Pair<Tweet, Integer>[] src, Pair<Tweet, Integer>[] dst, int lo, int hi, TaskConfig config) {
+        this.src = src;
+        this.dst = dst;
         this.lo = lo;
         this.hi = hi;
+        this.config = config;
     }
 
     /**
@@ -46,51 +82,122 @@ public class SortSentimentsTask extends RecursiveAction {
      */
     @Override
     protected void compute() {
-        // If single element is reached, return. Merging starts here.
-        if (lo >= (hi - 1)) return;
+        // If amount of work is lower than Sequential Threshold, sort dst in place.
+        if ((hi - lo) <= config.getThreshold()) {
+            sortSequentially(dst, lo, hi);
+            return;
+        }
 
-        // Else divide work in half.
+        // Else sort both halves into src (swapping the roles of the buffers) and merge them into dst.
         int middle = lo + (hi-lo)/2;
-        SortSentimentsTask left = new SortSentimentsTask(array, lo, middle);
-        SortSentimentsTask right = new SortSentimentsTask(array, middle, hi);
+        SortSentimentsTask left = new SortSentimentsTask(dst, src, lo, middle, config);
+        SortSentimentsTask right = new SortSentimentsTask(dst, src, middle, hi, config);
 
         //Fork one action and compute the other in this thread. Call join on forked thread to wait on result.
         left.fork(); right.compute(); left.join();
-        merge(middle); //Merge results from previous calls.
+        new MergeTask(src, lo, middle, middle, hi, dst, lo, config).compute();
+    }
+
+    private static void sortSequentially(Pair<Tweet, Integer>[] array, int lo, int hi) {
+        if ((hi - lo) > INSERTION_SORT_THRESHOLD) {
+            Arrays.sort(array, lo, hi, BY_SCORE); // TimSort is stable.
+            return;
+        }
+        for (int i = lo + 1; i < hi; i++) {
+            Pair<Tweet, Integer> current = array[i];
+            int score = current.getValue();
+            int j = i - 1;
+            while (j >= lo && array[j].getValue() > score) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = current;
+        }
     }
 
     /**
-     * Merge the subarrays lo to middle and middle to hi.
-     * @param middle Midpoint of the work of this action.
+     * Merge the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst starting at index out.
+     * Large merges take the middle element of the longest run, find its position in the other run by binary search,
+     * and merge both sides independently. On equal scores elements of the first run go first, which keeps the sort stable.
      */
-    private void merge(int middle) {
-        Pair<Tweet, Integer>[] workingArray = new Pair[(hi - lo)]; // Init new workingArray the size of current work.
-        int leftI = lo; //Init iterators.
-        int rightI = middle; //Init iterators.
-
-        // Loop through length of workingArray.
-        for (int i = 0; i < workingArray.length; i++) {
-            //If end in both subarrays has not been reached.
-            if (leftI < middle && rightI < hi) {
-                // Copy largest current element to workingArray and increment used iterator.
-                if (array[leftI].getValue() <= array[rightI].getValue()) {
-                    workingArray[i] = array[leftI++];
-                } else {
-                    workingArray[i] = array[rightI++];
-                }
+    private static class MergeTask extends RecursiveAction {
+        private Pair<Tweet, Integer>[] src;
+        private int lo1, hi1, lo2, hi2;
+        private Pair<Tweet, Integer>[] dst;
+        private int out;
+        private TaskConfig config;
+
+        MergeTask(Pair<Tweet, Integer>[] src, int lo1, int hi1, int lo2, int hi2, Pair<Tweet, Integer>[] dst, int out,
+                  TaskConfig config) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.config = config;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = hi1 - lo1;
+            int length2 = hi2 - lo2;
+            if (length1 + length2 <= config.getThreshold()) {
+                mergeSequentially();
+                return;
+            }
+
+            int split1, split2;
+            if (length1 >= length2) {
+                // Right run elements strictly below the pivot go before it.
+                split1 = lo1 + length1 / 2;
+                split2 = lowerBound(src, lo2, hi2, src[split1].getValue());
+            } else {
+                // Left run elements up to and including the pivot score go before it.
+                split2 = lo2 + length2 / 2;
+                split1 = upperBound(src, lo1, hi1, src[split2].getValue());
+            }
+
+            int outSplit = out + (split1 - lo1) + (split2 - lo2);
+            MergeTask left = new MergeTask(src, lo1, split1, lo2, split2, dst, out, config);
+            MergeTask right = new MergeTask(src, split1, hi1, split2, hi2, dst, outSplit, config);
+            left.fork(); right.compute(); left.join();
+        }
+
+        private void mergeSequentially() {
+            int i = lo1, j = lo2, k = out;
+            while (i < hi1 && j < hi2) {
+                // Take from the first run on equal scores.
+                if (src[i].getValue() <= src[j].getValue()) dst[k++] = src[i++];
+                else dst[k++] = src[j++];
             }
-            //Else flush the element of the array that needs to be completed to the workingArray.
-            else {
-                if (!(leftI < middle)) {
-                    workingArray[i] = array[rightI++];
-                } else {
-                    workingArray[i] = array[leftI++];
-                }
+            if (i < hi1) System.arraycopy(src, i, dst, k, hi1 - i);
+            if (j < hi2) System.arraycopy(src, j, dst, k, hi2 - j);
+        }
+
+        /**
+         * @return First index in [lo, hi) with a score >= key.
+         */
+        private static int lowerBound(Pair<Tweet, Integer>[] array, int lo, int hi, int key) {
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (array[middle].getValue() < key) lo = middle + 1;
+                else hi = middle;
             }
+            return lo;
         }
-        // Copy sorted workingArray back to base array.
-        for (int i = lo, j = 0; i < hi; i++) {
-            array[i] = workingArray[j++];
+
+        /**
+         * @return First index in [lo, hi) with a score > key.
+         */
+        private static int upperBound(Pair<Tweet, Integer>[] array, int lo, int hi, int key) {
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (array[middle].getValue() <= key) lo = middle + 1;
+                else hi = middle;
+            }
+            return lo;
         }
     }
 }
@@ -0,0 +1,153 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class to sort an array of objects by a comparator, e.g. UserStats by UserStats.Metric.comparator().
+ *
+ * Implementation using ForkJoin-Framework with a RecursiveAction, so the sort runs on the pool that invokes it
+ * (Arrays.parallelSort always runs on the common pool). The input array will be sorted after invoking the action.
+ * The sort is stable.
+ *
+ * Same mergesort as SortSentimentsTask: one auxiliary buffer that alternates with the input array between levels,
+ * Arrays.sort below the sequential threshold, and large merges split in two independent merges by binary search.
+ *
+ * @param <T> Type of the elements.
+ */
+public class SortTask<T> extends RecursiveAction {
+    // Sorted result of this range ends up in dst, src is scratch space. Both hold the same elements when the task starts.
+    private T[] src;
+    private T[] dst;
+    private int lo;
+    private int hi;
+    private Comparator<? super T> comparator;
+    // Configuration of this invocation, shared by all subtasks and merges.
+    private TaskConfig config;
+
+    /**
+     * Public constructor to initialize action.
+     * @param array Array to sort.
+     * @param comparator Order to sort in.
+     * @param threshold Sequential threshold : lower boundary to sort sequentially instead of dividing work.
+     */
+    public SortTask(T[] array, Comparator<? super T> comparator, int threshold) {
+        this(array, comparator, new TaskConfig(Math.max(2, threshold)));
+    }
+
+    /**
+     * Public constructor to initialize action with the configuration of this invocation.
+     * @param array Array to sort.
+     * @param comparator Order to sort in.
+     * @param config Configuration with the sequential threshold, raised to 2 if it is lower.
+     */
+    public SortTask(T[] array, Comparator<? super T> comparator, TaskConfig config) {
+        // The auxiliary buffer starts as a copy, so both buffers hold the same elements.
+        this(array.clone(), array, 0, array.length, comparator, config.atLeast(2));
+    }
+
+    private SortTask(T[] src, T[] dst, int lo, int hi, Comparator<? super T> comparator, TaskConfig config) {
+        this.src = src;
+        this.dst = dst;
+        this.lo = lo;
+        this.hi = hi;
+        this.comparator = comparator;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveAction method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     */
+    @Override
+    protected void compute() {
+        if ((hi - lo) <= config.getThreshold()) {
+            Arrays.sort(dst, lo, hi, comparator); // TimSort is stable.
+            return;
+        }
+
+        // Sort both halves into src (swapping the roles of the buffers) and merge them into dst.
+        int middle = lo + (hi-lo)/2;
+        SortTask<T> left = new SortTask<>(dst, src, lo, middle, comparator, config);
+        SortTask<T> right = new SortTask<>(dst, src, middle, hi, comparator, config);
+
+        left.fork(); right.compute(); left.join();
+        new MergeTask<>(src, lo, middle, middle, hi, dst, lo, comparator, config).compute();
+    }
+
+    /**
+     * Merge the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst starting at index out, like SortSentimentsTask.
+     * On equal elements those of the first run go first, which keeps the sort stable.
+     */
+    private static class MergeTask<T> extends RecursiveAction {
+        private T[] src;
+        private int lo1, hi1, lo2, hi2;
+        private T[] dst;
+        private int out;
+        private Comparator<? super T> comparator;
+        private TaskConfig config;
+
+        MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, Comparator<? super T> comparator,
+                  TaskConfig config) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.comparator = comparator;
+            this.config = config;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = hi1 - lo1;
+            int length2 = hi2 - lo2;
+            if (length1 + length2 <= config.getThreshold()) {
+                mergeSequentially();
+                return;
+            }
+
+            int split1, split2;
+            if (length1 >= length2) {
+                // Right run elements strictly below the pivot go before it.
+                split1 = lo1 + length1 / 2;
+                split2 = bound(lo2, hi2, src[split1], false);
+            } else {
+                // Left run elements up to and including the pivot go before it.
+                split2 = lo2 + length2 / 2;
+                split1 = bound(lo1, hi1, src[split2], true);
+            }
+
+            int outSplit = out + (split1 - lo1) + (split2 - lo2);
+            MergeTask<T> left = new MergeTask<>(src, lo1, split1, lo2, split2, dst, out, comparator, config);
+            MergeTask<T> right = new MergeTask<>(src, split1, hi1, split2, hi2, dst, outSplit, comparator, config);
+            left.fork(); right.compute(); left.join();
+        }
+
+        private void mergeSequentially() {
+            int i = lo1, j = lo2, k = out;
+            while (i < hi1 && j < hi2) {
+                // Take from the first run on equal elements.
+                if (comparator.compare(src[i], src[j]) <= 0) dst[k++] = src[i++];
+                else dst[k++] = src[j++];
+            }
+            if (i < hi1) System.arraycopy(src, i, dst, k, hi1 - i);
+            if (j < hi2) System.arraycopy(src, j, dst, k, hi2 - j);
+        }
+
+        /**
+         * @param upper False for the first index in [lo, hi) not below key, true for the first index above key.
+         */
+        private int bound(int lo, int hi, T key, boolean upper) {
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                int c = comparator.compare(src[middle], key);
+                if (c < 0 || (upper && c == 0)) lo = middle + 1;
+                else hi = middle;
+            }
+            return lo;
+        }
+    }
+}
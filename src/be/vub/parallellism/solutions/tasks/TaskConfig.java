@@ -0,0 +1,63 @@
+package be.vub.parallellism.solutions.tasks;
+
+/**
+ * Configuration of one task invocation.
+ *
+ * The root task of an invocation is created with a TaskConfig and hands the same object to every subtask,
+ * so invocations with different thresholds can run at the same time without affecting each other.
+ * Immutable, see ThresholdTuner to calibrate the threshold instead of choosing one by hand.
+ */
+public final class TaskConfig {
+    // Never divide work: the whole range is handled by one leaf.
+    public static final TaskConfig SEQUENTIAL = new TaskConfig(Integer.MAX_VALUE);
+
+    private final int threshold;
+    private final boolean asciiFastPath;
+
+    /**
+     * @param threshold Sequential threshold : lower boundary to do the work sequentially instead of dividing it.
+     */
+    public TaskConfig(int threshold) {
+        this(threshold, false);
+    }
+
+    /**
+     * @param threshold Sequential threshold : lower boundary to do the work sequentially instead of dividing it.
+     * @param asciiFastPath True to score sentiments with AsciiSentimentScorer, which gives the same scores.
+     */
+    public TaskConfig(int threshold, boolean asciiFastPath) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Sequential threshold must be positive: " + threshold);
+        this.threshold = threshold;
+        this.asciiFastPath = asciiFastPath;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public boolean isAsciiFastPath() {
+        return asciiFastPath;
+    }
+
+    /**
+     * @param asciiFastPath True to score sentiments with AsciiSentimentScorer.
+     * @return This configuration, or a copy with the other scorer.
+     */
+    public TaskConfig withAsciiFastPath(boolean asciiFastPath) {
+        return this.asciiFastPath == asciiFastPath ? this : new TaskConfig(threshold, asciiFastPath);
+    }
+
+    /**
+     * @param minimum Lowest threshold a task can work with.
+     * @return This configuration, or a copy with the threshold raised to minimum.
+     */
+    TaskConfig atLeast(int minimum) {
+        return threshold >= minimum ? this : new TaskConfig(minimum, asciiFastPath);
+    }
+
+    @Override
+    public String toString() {
+        return "threshold=" + threshold + (asciiFastPath ? ", ascii" : "");
+    }
+}
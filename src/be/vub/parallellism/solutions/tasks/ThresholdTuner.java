@@ -0,0 +1,176 @@
+package be.vub.parallellism.solutions.tasks;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the sequential threshold of a task instead of trying a fixed list of values.
+ *
+ * Calibration runs the work sequentially over a sample to measure the cost per item, and picks the leaf size
+ * so that one leaf takes about TARGET_LEAF_NANOS: long enough that forking and joining it is noise, but
+ * small enough that every worker of the pool gets LEAVES_PER_WORKER leaves to balance the load.
+ *
+ * Between runs the threshold can be re-tuned from the measured runtimes: the tuner keeps the fastest threshold
+ * seen so far and tries a step up or down from it, with smaller steps once neither direction helps.
+ * The current threshold is available as a TaskConfig for the next invocation.
+ */
+public class ThresholdTuner {
+    // Time one leaf should take.
+    static long TARGET_LEAF_NANOS = 100_000;
+    // Leaves per worker thread, so threads that finish early can still steal work.
+    static int LEAVES_PER_WORKER = 8;
+    // Lowest threshold calibration picks.
+    static int MIN_THRESHOLD = 16;
+    // Fastest of this many sample runs is used, the first ones warm up the JIT.
+    static int CALIBRATION_RUNS = 5;
+    // Re-tuning stops once the step factor drops below this.
+    private static final double MIN_STEP = 1.1;
+
+    private final int size;
+    private final int parallelism;
+    private TaskConfig config;
+    private double nanosPerItem = Double.NaN;
+
+    private TaskConfig best;
+    private long bestNanos = Long.MAX_VALUE;
+    private double step = 2;
+    private int direction = 1;
+    private int misses;
+    private boolean converged;
+
+    /**
+     * @param size Number of items the tuned tasks will run over.
+     * @param parallelism Parallelism of the ForkJoinPool the tasks run on.
+     */
+    public ThresholdTuner(int size, int parallelism) {
+        this.size = size;
+        this.parallelism = Math.max(1, parallelism);
+        this.config = new TaskConfig(leafSize(size, this.parallelism, Double.NaN));
+        this.best = config;
+    }
+
+    /**
+     * Measure the cost per item on a sample and calibrate the threshold from it.
+     * Resets re-tuning.
+     * @param sampleSize Number of items in the sample.
+     * @param sample Runs the work sequentially over the sample, e.g. a task invoked with TaskConfig.SEQUENTIAL.
+     * @return Calibrated configuration.
+     */
+    public TaskConfig calibrate(int sampleSize, Runnable sample) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long before = System.nanoTime();
+            sample.run();
+            fastest = Math.min(fastest, System.nanoTime() - before);
+        }
+        nanosPerItem = (double) fastest / Math.max(1, sampleSize);
+
+        config = new TaskConfig(leafSize(size, parallelism, nanosPerItem));
+        best = config;
+        bestNanos = Long.MAX_VALUE;
+        step = 2;
+        direction = 1;
+        misses = 0;
+        converged = false;
+        return config;
+    }
+
+    /**
+     * Report the runtime of an invocation with the current configuration and get the configuration for the next one.
+     * @param elapsedNanos Runtime of the invocation with getConfig().
+     * @return Configuration to use next.
+     */
+    public TaskConfig retune(long elapsedNanos) {
+        if (converged) return config;
+
+        if (elapsedNanos < bestNanos) {
+            // Faster: keep going in the same direction from here.
+            bestNanos = elapsedNanos;
+            best = config;
+            misses = 0;
+        } else {
+            // Slower: try the other direction from the best threshold, smaller steps if that failed too.
+            direction = -direction;
+            if (++misses == 2) {
+                step = Math.sqrt(step);
+                misses = 0;
+            }
+        }
+
+        if (step < MIN_STEP) {
+            converged = true;
+            config = best;
+            return config;
+        }
+        long next = Math.round(best.getThreshold() * Math.pow(step, direction));
+        config = new TaskConfig((int) Math.max(1, Math.min(Math.max(1, size), next)));
+        return config;
+    }
+
+    /**
+     * Leaf size for a cost per item, see the class comment.
+     * @param nanosPerItem Measured cost per item, NaN if unknown.
+     */
+    static int leafSize(int size, int parallelism, double nanosPerItem) {
+        // Upper bound so every worker gets LEAVES_PER_WORKER leaves.
+        long balanced = Math.max(1, ((long) size + (long) parallelism * LEAVES_PER_WORKER - 1) / ((long) parallelism * LEAVES_PER_WORKER));
+        if (Double.isNaN(nanosPerItem)) return (int) balanced;
+        long amortized = (long) Math.ceil(TARGET_LEAF_NANOS / Math.max(nanosPerItem, 1e-3));
+        return (int) Math.max(1, Math.min(balanced, Math.max(MIN_THRESHOLD, amortized)));
+    }
+
+    /**
+     * Evenly spread sample of an array, so the sample is not biased by the order of the data.
+     * @param items Items to sample from.
+     * @param sampleSize Number of items in the sample.
+     * @return Every (items.length / sampleSize)-th item, or a copy of all items if there are not more than sampleSize.
+     */
+    public static <T> T[] sample(T[] items, int sampleSize) {
+        int[] indices = sampleIndices(items.length, sampleSize);
+        T[] sample = Arrays.copyOf(items, indices.length);
+        for (int i = 0; i < indices.length; i++)
+            sample[i] = items[indices[i]];
+        return sample;
+    }
+
+    /**
+     * Indices of the sample taken by sample, to sample arrays that are indexed like the items in the same way.
+     * @param length Number of items to sample from.
+     * @param sampleSize Number of items in the sample.
+     * @return Every (length / sampleSize)-th index, or all indices if there are not more than sampleSize.
+     */
+    public static int[] sampleIndices(int length, int sampleSize) {
+        if (length <= sampleSize) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) all[i] = i;
+            return all;
+        }
+        int[] indices = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++)
+            indices[i] = (int) ((long) i * length / sampleSize);
+        return indices;
+    }
+
+    public TaskConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return Cost per item measured by calibrate, NaN before calibration.
+     */
+    public double getNanosPerItem() {
+        return nanosPerItem;
+    }
+
+    /**
+     * @return True once re-tuning has settled on a threshold.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return config + (Double.isNaN(nanosPerItem) ? "" : String.format(" (%.1f ns/item)", nanosPerItem))
+                + (converged ? " converged" : "");
+    }
+}
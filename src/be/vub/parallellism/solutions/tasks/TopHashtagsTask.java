@@ -0,0 +1,78 @@
+package be.vub.parallellism.solutions.tasks;
+
+import be.vub.parallellism.data.models.SpaceSavingSummary;
+import be.vub.parallellism.data.models.Tweet;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class to find the most used hashtags in an array of Tweet-objects with bounded memory.
+ * Fase 1 - Approximate top-K
+ *
+ * Implementation using ForkJoin-framework with a RecursiveTask.
+ * Each thread keeps a SpaceSavingSummary with a fixed number of counters instead of an exact HashMap,
+ * summaries are merged at join. Memory per task does not depend on the number of distinct hashtags.
+ * The result reports an error bound for every count, see SpaceSavingSummary.
+ */
+public class TopHashtagsTask extends RecursiveTask<SpaceSavingSummary> {
+    // Configuration of this invocation, shared by all subtasks.
+    private TaskConfig config;
+
+    private Tweet[] tweets;
+    private int lo;
+    private int hi;
+    private int capacity;
+
+    /**
+     * Constructor to initialize with tweets, summary size and sequential threshold.
+     * @param tweets Array of Tweet-objects used to count hashtags.
+     * @param capacity Number of counters per summary. Use a few times the number of top hashtags you want to see.
+     * @param threshold Sequential threshold : lower boundary to start counting hashtags instead of dividing work.
+     */
+    public TopHashtagsTask(Tweet[] tweets, int capacity, int threshold) {
+        this(tweets, capacity, new TaskConfig(threshold));
+    }
+
+    /**
+     * Constructor to initialize with tweets, summary size and the configuration of this invocation.
+     * @param tweets Array of Tweet-objects used to count hashtags.
+     * @param capacity Number of counters per summary.
+     * @param config Configuration with the sequential threshold.
+     */
+    public TopHashtagsTask(Tweet[] tweets, int capacity, TaskConfig config) {
+        this(tweets, 0, tweets.length, capacity, config);
+    }
+
+    private TopHashtagsTask(Tweet[] tweets, int lo, int hi, int capacity, TaskConfig config) {
+        this.tweets = tweets;
+        this.lo = lo;
+        this.hi = hi;
+        this.capacity = capacity;
+        this.config = config;
+    }
+
+    /**
+     * Override of RecursiveTask method compute. Gets called by ForkJoinPool method invoke to run the thread after its creation.
+     * @return Summary of the hashtags in the current subarray.
+     */
+    @Override
+    protected SpaceSavingSummary compute() {
+        // If amount of work (upper boundary - lower boundary) is lower than Sequential Threshold, summarize sequentially.
+        if ((hi - lo) <= config.getThreshold()) {
+            SpaceSavingSummary summary = new SpaceSavingSummary(capacity);
+            for (int i = lo; i < hi; i++)
+                for (String hashtag : tweets[i].getHashtags())
+                    summary.add(hashtag);
+            return summary;
+        }
+
+        // Else divide work and run threads.
+        TopHashtagsTask left = new TopHashtagsTask(tweets, lo, (hi+lo)/2, capacity, config);
+        TopHashtagsTask right = new TopHashtagsTask(tweets, (hi+lo)/2, hi, capacity, config);
+
+        left.fork(); // Fork 1 Task first to start thread in background.
+        SpaceSavingSummary rightSummary = right.compute(); // Run other Task in current thread.
+        // Call join() on forked Task to wait for the result of the thread and merge both summaries.
+        return SpaceSavingSummary.merge(left.join(), rightSummary);
+    }
+}